@@ -4,12 +4,13 @@ import battlecode.common.*;
 
 import java.util.Arrays;
 
-import static e_exfiltrateflag.Util.debug;
-
 /**
  * Since all bots are "alive" (in the sense that they're running code) all the time, we can use a broadcast-based system.
- * Whenever a bot needs to communicate something, we put it into the shared array. Then we can free up that spot on the
- * next turn, since all the other bots will have seen it and copied it into their local memory.
+ * Whenever a bot needs to communicate something, we put it into the shared array. A broadcast from round r has been seen
+ * by every bot by the end of round r + 1, so the first bot to act in round r + 2 (the leader for that round) frees it.
+ * Broadcasts from even rounds fill the broadcast slots from the bottom and ones from odd rounds fill them from the top,
+ * so the leader can clear a whole round at once, everything stays packed, and the free slots are always the ones in
+ * between. The header slot counts both, so finding free slots or new broadcasts takes one read.
  * The most likely complication is that a bot runs out of bytecode and doesn't read the shared array. In this case, that
  * bot won't have the information for the rest of the game, if we're de-duping the broadcasts correctly.
  * TODO: We could keep a broadcast around for multiple turns, or randomly resend existing information if we have space.
@@ -28,6 +29,9 @@ public class Communications {
     final static int ENEMY = 1;
     final static int FLAG = 2;
     final static int ID_MAPPING = 3;
+    // Flag broadcasts never go in the broadcast slots, so there the flag types carry Roster entries instead
+    final static int ROSTER_LOW = FLAG;
+    final static int ROSTER_HIGH = ID_MAPPING;
 
     final static int TYPES = 4;
 
@@ -49,15 +53,34 @@ public class Communications {
     static int[][] map = new int[GameConstants.MAP_MAX_HEIGHT][GameConstants.MAP_MAX_WIDTH];
     //    static int symmetry = HORIZONTAL | VERTICAL | ROTATIONAL;  // TODO: symmetry calculations
 
-    final static int ALLY_FLAG_LIFETIME = 3;
+    // FLAG STATES. Sent in the value field of FLAG broadcasts, since the index already says which flag it is.
+    final static int AT_HOME = 0;
+    final static int CARRIED = 1;
+    final static int DROPPED = 2;
+    final static int CAPTURED = 3;
+
+    // CONFIDENCE IN A FLAG TABLE ENTRY
+    final static int LOST = 0;
+    final static int HEARD = 1;  // from a broadcast
+    final static int SEEN = 2;  // with our own sensors
+
+    // FLAG TABLE. Entries 0-2 are ally flags and 3-5 are enemy flags, matching the indexes of their location broadcasts.
+    final static int FLAG_ENTRIES = 2 * GameConstants.NUMBER_FLAGS;
+    static int[] flagId = {-1, -1, -1, -1, -1, -1};
+    static int[] flagState = new int[FLAG_ENTRIES];
+    static MapLocation[] flagLoc = new MapLocation[FLAG_ENTRIES];
+    static MapLocation[] flagHome = new MapLocation[FLAG_ENTRIES];
+    static int[] flagRound = {-1, -1, -1, -1, -1, -1};
+    static int[] flagConfidence = new int[FLAG_ENTRIES];
+    static int[] flagSeenRound = {-1, -1, -1, -1, -1, -1};
+
+    // Open addressing from flag ID to entry + 1, so that 0 is empty. There are only 6 flags, so 16 buckets is plenty.
+    final static int FLAG_HASH_SIZE = 16;
+    static int[] flagHash = new int[FLAG_HASH_SIZE];
+
+    // Views of the flag table for everything else. null means the flag is lost or captured.
     static MapLocation[] allyFlags = new MapLocation[GameConstants.NUMBER_FLAGS];
-    static int[] allyFlagId = {-1, -1, -1};
-    static int[] allyFlagRound = {-1, -1, -1};
-
-    final static int ENEMY_FLAG_LIFETIME = 8;
     static MapLocation[] enemyFlags = new MapLocation[GameConstants.NUMBER_FLAGS];
-    static int[] enemyFlagId = {-1, -1, -1};
-    static int[] enemyFlagRound = {-1, -1, -1};
 
     // TODO: is there a better sightings system? right now we just maintain a list of spots with enemies and expire them
     // Bots will end up with different lists, but it should be okay
@@ -74,83 +97,147 @@ public class Communications {
     final static int FLAG_SPACES = ALLY_FLAG_SPACES + ENEMY_FLAG_SPACES;
     final static int FLAG_MAPPING_BUFFER = 3;
 
-    static MapLocation[] tbMapLocation = new MapLocation[500];  // TODO: find max # of broadcasts
-    static int[] tbMapValue = new int[500];
+    // Slots right after the flags are reserved for FocusFire and HealClaims, so the broadcast queue starts after them
+    final static int FOCUS_START = FLAG_SPACES;
+    final static int FOCUS_SLOTS = 4;
+    final static int HEAL_START = FOCUS_START + FOCUS_SLOTS;
+    final static int HEAL_SLOTS = 4;
+
+    // Number of Roster indexes handed out so far
+    final static int ROSTER = HEAL_START + HEAL_SLOTS;
+
+    // HEADER. (round & 15, even round broadcasts, odd round broadcasts), 6 bits per count.
+    final static int HEADER = ROSTER + 1;
+    final static int BROADCAST_START = HEADER + 1;
+    final static int BROADCAST_SLOTS = GameConstants.SHARED_ARRAY_LENGTH - BROADCAST_START;
+    final static int COUNT_BITS = 6;
+    final static int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    static int[] generationSize = new int[2];  // broadcasts from even and odd rounds, as of our last header read
+    static int[] readUpTo = new int[2];  // how many of those we've already read
+    static int lastRead = -1;
+    static int lastHousekeeping = -1;
+
+    // Each tile is queued at most once, since it's marked TO_SEND when it is
+    static MapLocation[] tbMapLocation = new MapLocation[GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_HEIGHT];
+    static int[] tbMapValue = new int[GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_HEIGHT];
     static int nMap = 0;
-    static MapLocation[] dams = new MapLocation[3600];
-    static int nDams = 0;
 
     static MapLocation[] tbEnemyLocation = new MapLocation[100];
     static int nEnemyLocation = 0;
 
-    // QUEUE OF OLD BROADCASTS TO CLEAR OUT
-    static int[] toClear = new int[64];
-    static int nClear = 0;
-
 
     public Communications(RobotController rc) {
         this.rc = rc;
     }
 
     public void readBroadcasts() throws GameActionException {
-        for (int i = 64; i --> 0; ) {  // TODO: can unroll this
-            int value = rc.readSharedArray(i);
-            if (value != UNUSED) {
-                final int type = value % TYPES;
-                value /= TYPES;
-                switch (type) {
-                    case MAP_INFO:
-                        final int info = (value / GameConstants.MAP_MAX_HEIGHT) / GameConstants.MAP_MAX_WIDTH;
-                        final int tileX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
-                        final int tileY = value % GameConstants.MAP_MAX_HEIGHT;
-                        map[tileX][tileY] = info;
-                        if (info == DAM_TILE) dams[nDams++] = new MapLocation(tileX, tileY);
-                        break;
-                    case ENEMY:
-                        final int enemyX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
-                        final int enemyY = value % GameConstants.MAP_MAX_HEIGHT;
-                        final MapLocation enemyLoc = new MapLocation(enemyX, enemyY);
-                        boolean merged = false;
-                        for (int j = nSightings; j --> 0; ) {
-                            if (enemySightings[j].mergeIn(enemyLoc, rc.getRoundNum())) {
-                                merged = true;
-                                break;
-                            }
-                        }
-                        if (!merged) enemySightings[nSightings++] = new EnemySighting(enemyLoc, rc.getRoundNum());
-                        break;
-                    case FLAG:
-                        final int flagIdx = (value / GameConstants.MAP_MAX_HEIGHT) / GameConstants.MAP_MAX_WIDTH;
-                        final int flagX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
-                        final int flagY = value % GameConstants.MAP_MAX_HEIGHT;
-
-                        if (i < ALLY_FLAG_SPACES) {
-                            allyFlags[flagIdx] = new MapLocation(flagX, flagY);
-                            allyFlagRound[flagIdx] = rc.getRoundNum();
-                        } else {
-                            enemyFlags[flagIdx] = new MapLocation(flagX, flagY);
-                            enemyFlagRound[flagIdx] = rc.getRoundNum();
-                        }
-                        break;
-                    case ID_MAPPING:
-                        final int id = value / GameConstants.NUMBER_FLAGS;
-                        final int idx = value % GameConstants.NUMBER_FLAGS;
-                        if (i < ALLY_FLAG_SPACES) {
-                            allyFlagId[idx] = id;
-                        } else {
-                            enemyFlagId[idx] = id;
-                        }
+        // Not Turn.round, since a turn that ran out of bytecode finishes in the next round
+        final int round = rc.getRoundNum();
+        housekeep(round);
+        if (!Roster.joined) Roster.join(rc);
+        for (int i = FLAG_SPACES; i --> 0; ) {
+            final int value = rc.readSharedArray(i);
+            if (value != UNUSED) process(i, value);
+        }
+        // This round's broadcasts were cleared by the leader, so all of them are new. Last round's are new from wherever
+        // we stopped reading last turn.
+        final int g = round & 1;
+        for (int k = generationSize[g]; k --> 0; ) {
+            final int value = rc.readSharedArray(slot(g, k));
+            if (value != UNUSED) process(slot(g, k), value);
+        }
+        for (int k = generationSize[1 - g], start = lastRead == round - 1 ? readUpTo[1 - g] : 0; k --> start; ) {
+            final int value = rc.readSharedArray(slot(1 - g, k));
+            if (value != UNUSED) process(slot(1 - g, k), value);
+        }
+        readUpTo[0] = generationSize[0];
+        readUpTo[1] = generationSize[1];
+        lastRead = round;
+
+        // Done here rather than in broadcast so that ducks that can't spawn yet are in the roster too
+        if (round - Roster.lastAnnounced >= Roster.REANNOUNCE_INTERVAL && Roster.myIndex != -1 && BROADCAST_SLOTS - generationSize[0] - generationSize[1] >= 2) {
+            rc.writeSharedArray(slot(g, generationSize[g]++), ((Roster.myIndex << 8 | (Turn.id & 255)) * TYPES) + ROSTER_LOW);
+            rc.writeSharedArray(slot(g, generationSize[g]++), ((Roster.myIndex << 8 | (Turn.id >>> 8)) * TYPES) + ROSTER_HIGH);
+            writeHeader(round);
+            Roster.lastAnnounced = round;
+        }
+
+        for (int e = FLAG_ENTRIES; e --> 0; ) {
+            final int lifetime = e < GameConstants.NUMBER_FLAGS ? Params.ALLY_FLAG_LIFETIME : Params.ENEMY_FLAG_LIFETIME;
+            if (flagConfidence[e] != LOST && flagState[e] != CAPTURED && flagRound[e] + lifetime < Turn.round) {
+                flagConfidence[e] = LOST;
+            }
+        }
+        updateFlagViews();
+    }
+
+    private void process(int i, int value) {
+        final int type = value % TYPES;
+        value /= TYPES;
+        if (i >= BROADCAST_START && type >= ROSTER_LOW) {
+            Roster.heard(type == ROSTER_HIGH, value);
+            return;
+        }
+        switch (type) {
+            case MAP_INFO:
+                final int info = (value / GameConstants.MAP_MAX_HEIGHT) / GameConstants.MAP_MAX_WIDTH;
+                final int tileX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
+                final int tileY = value % GameConstants.MAP_MAX_HEIGHT;
+                map[tileX][tileY] = info;
+                if (info == WALL_TILE) Pathfinder.addWall(tileX, tileY);
+                if (info == DAM_TILE) DamIndex.add(tileX, tileY);
+                break;
+            case ENEMY:
+                final int enemyX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
+                final int enemyY = value % GameConstants.MAP_MAX_HEIGHT;
+                final MapLocation enemyLoc = new MapLocation(enemyX, enemyY);
+                boolean merged = false;
+                for (int j = nSightings; j --> 0; ) {
+                    if (enemySightings[j].mergeIn(enemyLoc, Turn.round)) {
+                        merged = true;
                         break;
+                    }
                 }
-            }
+                if (!merged) enemySightings[nSightings++] = new EnemySighting(enemyLoc, Turn.round);
+                break;
+            case FLAG:
+                final int flagX = (value / GameConstants.MAP_MAX_HEIGHT) % GameConstants.MAP_MAX_WIDTH;
+                final int flagY = value % GameConstants.MAP_MAX_HEIGHT;
+                heardFlag(i, (value / GameConstants.MAP_MAX_HEIGHT) / GameConstants.MAP_MAX_WIDTH, flagX, flagY);
+                break;
+            case ID_MAPPING:
+                final int id = value / GameConstants.NUMBER_FLAGS;
+                final int entry = (i < ALLY_FLAG_SPACES ? 0 : GameConstants.NUMBER_FLAGS) + value % GameConstants.NUMBER_FLAGS;
+                if (flagId[entry] == -1) {
+                    flagId[entry] = id;
+                    hashFlag(id, entry);
+                }
+                break;
         }
+    }
 
-        if (allyFlags[0] != null && allyFlagRound[0] + ALLY_FLAG_LIFETIME < rc.getRoundNum()) allyFlags[0] = null;
-        if (allyFlags[1] != null && allyFlagRound[1] + ALLY_FLAG_LIFETIME < rc.getRoundNum()) allyFlags[1] = null;
-        if (allyFlags[2] != null && allyFlagRound[2] + ALLY_FLAG_LIFETIME < rc.getRoundNum()) allyFlags[2] = null;
-        if (enemyFlags[0] != null && enemyFlagRound[0] + ENEMY_FLAG_LIFETIME < rc.getRoundNum()) enemyFlags[0] = null;
-        if (enemyFlags[1] != null && enemyFlagRound[1] + ENEMY_FLAG_LIFETIME < rc.getRoundNum()) enemyFlags[1] = null;
-        if (enemyFlags[2] != null && enemyFlagRound[2] + ENEMY_FLAG_LIFETIME < rc.getRoundNum()) enemyFlags[2] = null;
+    private static int slot(int generation, int k) {
+        return generation == 0 ? BROADCAST_START + k : GameConstants.SHARED_ARRAY_LENGTH - 1 - k;
+    }
+
+    // Reads the header. The first bot to get here in a round is the leader, and clears the broadcasts from two rounds ago.
+    private void housekeep(int round) throws GameActionException {
+        lastHousekeeping = round;
+        final int header = rc.readSharedArray(HEADER);
+        generationSize[0] = (header >>> COUNT_BITS) & COUNT_MASK;
+        generationSize[1] = header & COUNT_MASK;
+        if (header >>> (2 * COUNT_BITS) == (round & 15)) return;
+        final int g = round & 1;
+        for (int k = generationSize[g]; k --> 0; ) {
+            rc.writeSharedArray(slot(g, k), UNUSED);
+        }
+        generationSize[g] = 0;
+        writeHeader(round);
+    }
+
+    private void writeHeader(int round) throws GameActionException {
+        rc.writeSharedArray(HEADER, (((round & 15) << COUNT_BITS | generationSize[0]) << COUNT_BITS) | generationSize[1]);
     }
 
     public void addMapInfo(MapInfo[] info) {
@@ -159,187 +246,155 @@ public class Communications {
                 map[info[i].getMapLocation().x][info[i].getMapLocation().y] = TO_SEND;
                 tbMapLocation[nMap] = info[i].getMapLocation();
                 tbMapValue[nMap++] = info[i].isWall() ? WALL_TILE : (info[i].isDam() ? DAM_TILE : OPEN_TILE);
+                if (info[i].isWall()) Pathfinder.addWall(info[i].getMapLocation().x, info[i].getMapLocation().y);
+                if (info[i].isDam()) DamIndex.add(info[i].getMapLocation().x, info[i].getMapLocation().y);
             }
         }
     }
 
     public void addFlags(FlagInfo[] info) throws GameActionException {
-        // Mark nearby flags as lost. If they're not, we can see them, and we'll update position again.
-        if (allyFlags[0] != null && rc.getLocation().isWithinDistanceSquared(allyFlags[0], 2)) {
-            allyFlags[0] = null;
-            rc.writeSharedArray(0, 0);
-        }
-        if (allyFlags[1] != null && rc.getLocation().isWithinDistanceSquared(allyFlags[1], 2)) {
-            allyFlags[1] = null;
-            rc.writeSharedArray(1, 0);
-        }
-        if (allyFlags[2] != null && rc.getLocation().isWithinDistanceSquared(allyFlags[2], 2)) {
-            allyFlags[2] = null;
-            rc.writeSharedArray(2, 0);
+        for (int i = info.length; i --> 0; ) {
+            final int id = info[i].getID();
+            int e = lookupFlag(id);
+            if (e == -1) {
+                // Don't send flag location yet. Make sure the ID_MAPPING is processed first.
+                e = claimFlag(id, info[i].getTeam() == Turn.team ? 0 : GameConstants.NUMBER_FLAGS);
+                final int packed = packFlagMapping(id, e % GameConstants.NUMBER_FLAGS);
+                final int slot = e < GameConstants.NUMBER_FLAGS ? e : e + GameConstants.NUMBER_FLAGS;
+                if (rc.canWriteSharedArray(slot, packed)) {
+                    rc.writeSharedArray(slot, packed);
+                }
+                continue;
+            }
+            flagSeenRound[e] = Turn.round;
+            if (Turn.round < FLAG_MAPPING_BUFFER) continue;
+
+            final MapLocation loc = info[i].getLocation();
+            if (!info[i].isPickedUp() && (Turn.round <= GameConstants.SETUP_ROUNDS || flagHome[e] == null)) flagHome[e] = loc;
+            final int state = info[i].isPickedUp() ? CARRIED : (loc.equals(flagHome[e]) ? AT_HOME : DROPPED);
+            final boolean changed = flagConfidence[e] == LOST || state != flagState[e] || !loc.equals(flagLoc[e]);
+            flagState[e] = state;
+            flagLoc[e] = loc;
+            flagRound[e] = Turn.round;
+            flagConfidence[e] = SEEN;
+            if (changed) {
+                final int packed = pack(FLAG, state, loc);
+                if (rc.canWriteSharedArray(e, packed)) {
+                    rc.writeSharedArray(e, packed);
+                }
+            }
         }
-        if (enemyFlags[0] != null && rc.getLocation().isWithinDistanceSquared(enemyFlags[0], 2)) {
-            enemyFlags[0] = null;
-            rc.writeSharedArray(3, 0);
+
+        // Flags we should be able to see but can't have been moved. Clear them until someone sees them again.
+        for (int e = FLAG_ENTRIES; e --> 0; ) {
+            if (flagConfidence[e] != LOST && flagState[e] != CAPTURED && flagSeenRound[e] != Turn.round && Turn.loc.isWithinDistanceSquared(flagLoc[e], 2)) {
+                flagConfidence[e] = LOST;
+                rc.writeSharedArray(e, 0);
+            }
         }
-        if (enemyFlags[1] != null && rc.getLocation().isWithinDistanceSquared(enemyFlags[1], 2)) {
-            enemyFlags[1] = null;
-            rc.writeSharedArray(4, 0);
+        updateFlagViews();
+    }
+
+    // Called by a carrier whose flag disappeared after stepping into our spawn zone
+    public void flagCaptured(int id) throws GameActionException {
+        final int e = lookupFlag(id);
+        if (e == -1 || flagState[e] == CAPTURED) return;
+        flagState[e] = CAPTURED;
+        flagLoc[e] = Turn.loc;
+        flagRound[e] = Turn.round;
+        rc.writeSharedArray(e, pack(FLAG, CAPTURED, Turn.loc));
+        updateFlagViews();
+    }
+
+    private static void heardFlag(int e, int state, int x, int y) {
+        if (flagState[e] == CAPTURED) return;
+        flagState[e] = state;
+        flagLoc[e] = new MapLocation(x, y);
+        if (state == AT_HOME) flagHome[e] = flagLoc[e];
+        flagRound[e] = Turn.round;
+        if (flagSeenRound[e] != Turn.round) flagConfidence[e] = HEARD;
+    }
+
+    private static void updateFlagViews() {
+        for (int f = GameConstants.NUMBER_FLAGS; f --> 0; ) {
+            allyFlags[f] = flagConfidence[f] != LOST && flagState[f] != CAPTURED ? flagLoc[f] : null;
+            final int e = f + GameConstants.NUMBER_FLAGS;
+            enemyFlags[f] = flagConfidence[e] != LOST && flagState[e] != CAPTURED ? flagLoc[e] : null;
         }
-        if (enemyFlags[2] != null && rc.getLocation().isWithinDistanceSquared(enemyFlags[2], 2)) {
-            enemyFlags[2] = null;
-            rc.writeSharedArray(5, 0);
+    }
+
+    static int lookupFlag(int id) {
+        for (int h = id & (FLAG_HASH_SIZE - 1); flagHash[h] != 0; h = (h + 1) & (FLAG_HASH_SIZE - 1)) {
+            if (flagId[flagHash[h] - 1] == id) return flagHash[h] - 1;
         }
-        for (int i = info.length; i --> 0; ) {
-            if (info[i].getTeam() == rc.getTeam()) {
-                if (info[i].getID() == allyFlagId[0]) {
-                    if (!info[i].getLocation().equals(allyFlags[0]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        allyFlags[0] = info[i].getLocation();
-                        allyFlagRound[0] = rc.getRoundNum();
-                        final int packed = pack(FLAG, 0, info[i].getLocation());
-                        if (rc.canWriteSharedArray(0, packed)) {
-                            rc.writeSharedArray(0, packed);
-                        }
-                    }
-                } else if (info[i].getID() == allyFlagId[1]) {
-                    if (!info[i].getLocation().equals(allyFlags[1]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        allyFlags[1] = info[i].getLocation();
-                        allyFlagRound[1] = rc.getRoundNum();
-                        final int packed = pack(FLAG, 1, info[i].getLocation());
-                        if (rc.canWriteSharedArray(1, packed)) {
-                            rc.writeSharedArray(1, packed);
-                        }
-                    }
-                } else if (info[i].getID() == allyFlagId[2]) {
-                    if (!info[i].getLocation().equals(allyFlags[2]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        allyFlags[2] = info[i].getLocation();
-                        allyFlagRound[2] = rc.getRoundNum();
-                        final int packed = pack(FLAG, 2, info[i].getLocation());
-                        if (rc.canWriteSharedArray(2, packed)) {
-                            rc.writeSharedArray(2, packed);
-                        }
-                    }
-                } else {
-                    // Don't send flag location yet. Make sure the ID_MAPPING is processed first.
-                    if (allyFlagId[0] == -1) {
-                        allyFlagId[0] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 0);
-                        if (rc.canWriteSharedArray(0, packed)) {
-                            rc.writeSharedArray(0, packed);
-                        }
-                    } else if (allyFlagId[1] == -1) {
-                        allyFlagId[1] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 1);
-                        if (rc.canWriteSharedArray(1, packed)) {
-                            rc.writeSharedArray(1, packed);
-                        }
-                    } else if (allyFlagId[2] == -1) {
-                        allyFlagId[2] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 2);
-                        if (rc.canWriteSharedArray(2, packed)) {
-                            rc.writeSharedArray(2, packed);
-                        }
-                    } else throw new IllegalStateException("ally flag id " + info[i].getID() + " doesn't match " + Arrays.toString(allyFlagId));
-                }
-            } else {
-                if (info[i].getID() == enemyFlagId[0]) {
-                    if (!info[i].getLocation().equals(enemyFlags[0]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        enemyFlags[0] = info[i].getLocation();
-                        final int packed = pack(FLAG, 0, info[i].getLocation());
-                        if (rc.canWriteSharedArray(3, packed)) {
-                            rc.writeSharedArray(3, packed);
-                        }
-                    }
-                } else if (info[i].getID() == enemyFlagId[1]) {
-                    if (!info[i].getLocation().equals(enemyFlags[1]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        enemyFlags[1] = info[i].getLocation();
-                        final int packed = pack(FLAG, 1, info[i].getLocation());
-                        if (rc.canWriteSharedArray(4, packed)) {
-                            rc.writeSharedArray(4, packed);
-                        }
-                    }
-                } else if (info[i].getID() == enemyFlagId[2]) {
-                    if (!info[i].getLocation().equals(enemyFlags[2]) && rc.getRoundNum() >= FLAG_MAPPING_BUFFER) {
-                        enemyFlags[2] = info[i].getLocation();
-                        final int packed = pack(FLAG, 2, info[i].getLocation());
-                        if (rc.canWriteSharedArray(5, packed)) {
-                            rc.writeSharedArray(5, packed);
-                        }
-                    }
-                } else {
-                    if (enemyFlagId[0] == -1) {
-                        enemyFlagId[0] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 0);
-                        if (rc.canWriteSharedArray(6, packed)) {
-                            rc.writeSharedArray(6, packed);
-                        }
-                    } else if (enemyFlagId[1] == -1) {
-                        enemyFlagId[1] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 1);
-                        if (rc.canWriteSharedArray(7, packed)) {
-                            rc.writeSharedArray(7, packed);
-                        }
-                    } else if (enemyFlagId[2] == -1) {
-                        enemyFlagId[2] = info[i].getID();
-                        final int packed = packFlagMapping(info[i].getID(), 2);
-                        if (rc.canWriteSharedArray(8, packed)) {
-                            rc.writeSharedArray(8, packed);
-                        }
-                    } else throw new IllegalStateException("enemy flag id " + info[i].getID() + " doesn't match " + Arrays.toString(enemyFlagId));
-                }
+        return -1;
+    }
+
+    private static void hashFlag(int id, int e) {
+        int h = id & (FLAG_HASH_SIZE - 1);
+        while (flagHash[h] != 0) h = (h + 1) & (FLAG_HASH_SIZE - 1);
+        flagHash[h] = e + 1;
+    }
+
+    // Takes the first unused entry of the ally (base 0) or enemy (base 3) half of the table
+    private static int claimFlag(int id, int base) {
+        for (int e = base; e < base + GameConstants.NUMBER_FLAGS; ++e) {
+            if (flagId[e] == -1) {
+                flagId[e] = id;
+                hashFlag(id, e);
+                return e;
             }
         }
+        throw new IllegalStateException("flag id " + id + " doesn't match " + Arrays.toString(flagId));
     }
 
     public void addEnemies(RobotInfo[] info) {
         for (int i = info.length; i --> 0; ) {
-            boolean handled = false;
-            for (int j = nSightings; j --> 0; ) {
-                if (enemySightings[j].near(info[i].location)) {
-                    handled = true;
-                    if (enemySightings[j].stale(rc.getRoundNum())) {
-                        enemySightings[j].mergeIn(info[i].location, rc.getRoundNum());
-                        tbEnemyLocation[nEnemyLocation++] = info[i].location;
-                    }
-                    break;
-                } else if (enemySightings[j].stale(rc.getRoundNum())) {
-                    handled = true;
-                    enemySightings[j] = new EnemySighting(info[i].location, rc.getRoundNum());
-                    break;
+            addEnemySighting(info[i].location);
+        }
+    }
+
+    // Also used for enemies we never saw but know were there, like whoever set off one of our traps
+    public void addEnemySighting(MapLocation location) {
+        for (int j = nSightings; j --> 0; ) {
+            if (enemySightings[j].near(location)) {
+                if (enemySightings[j].stale(Turn.round)) {
+                    enemySightings[j].mergeIn(location, Turn.round);
+                    tbEnemyLocation[nEnemyLocation++] = location;
                 }
-            }
-            if (!handled) {
-                enemySightings[nSightings++] = new EnemySighting(info[i].location, rc.getRoundNum());
-                tbEnemyLocation[nEnemyLocation++] = info[i].location;
+                return;
+            } else if (enemySightings[j].stale(Turn.round)) {
+                enemySightings[j] = new EnemySighting(location, Turn.round);
+                return;
             }
         }
+        enemySightings[nSightings++] = new EnemySighting(location, Turn.round);
+        tbEnemyLocation[nEnemyLocation++] = location;
     }
 
     public void broadcast() throws GameActionException {
         // NOTE THAT FLAG BROADCASTS (INDEXES 0-8) ARE DONE IN add_flag
 
-        while (nClear > 0) {
-            rc.writeSharedArray(toClear[--nClear], UNKNOWN);
-        }
+        final int round = rc.getRoundNum();
+        if (lastHousekeeping != round) housekeep(round);
+        final int g = round & 1;
+        final int before = generationSize[g];
+        int free = BROADCAST_SLOTS - generationSize[0] - generationSize[1];
 
-        int i = 64;
-        while (i --> FLAG_SPACES && nMap > 0) {
-            if (map[tbMapLocation[nMap - 1].x][tbMapLocation[nMap - 1].y] == TO_SEND) {
-                // This value was already sent by another bot. Don't send it again.
-                --nMap;
-                continue;
-            }
-            if (rc.readSharedArray(i) == UNUSED) {
-                --nMap;
-                rc.writeSharedArray(i, pack(MAP_INFO, tbMapValue[nMap], tbMapLocation[nMap]));
-                toClear[nClear++] = i;
-            }
+        // Enemies first, since they're only useful while they're fresh
+        while (free > 0 && nEnemyLocation > 0) {
+            rc.writeSharedArray(slot(g, generationSize[g]++), pack(ENEMY, 0, tbEnemyLocation[--nEnemyLocation]));
+            --free;
         }
-        while (i --> FLAG_SPACES && nEnemyLocation > 0) {
-            if (rc.readSharedArray(i) == UNUSED) {
-                rc.writeSharedArray(i, pack(ENEMY, 0, tbEnemyLocation[--nEnemyLocation]));
-                toClear[nClear++] = i;
-            }
+        // Map tiles wait for the roster at the start of the game, since they'd take up all the space
+        while (free > 0 && nMap > 0 && (Roster.known == GameConstants.ROBOT_CAPACITY || round > Roster.DEADLINE)) {
+            --nMap;
+            // Reading someone else's broadcast of this tile replaced TO_SEND, so there's no need to send it again
+            if (map[tbMapLocation[nMap].x][tbMapLocation[nMap].y] != TO_SEND) continue;
+            rc.writeSharedArray(slot(g, generationSize[g]++), pack(MAP_INFO, tbMapValue[nMap], tbMapLocation[nMap]));
+            --free;
         }
+        if (generationSize[g] != before) writeHeader(round);
     }
 
     private int pack(int type, int value, MapLocation loc) {
@@ -353,7 +408,7 @@ public class Communications {
         int bestScore = 1_000_000;
         MapLocation priority = null;
         for (int i = nSightings; i --> 0; ) {
-            if (bestScore > loc.distanceSquaredTo(enemySightings[i].location) + distanceSquaredToNearestAllyFlag(enemySightings[i].location) * 10 && !enemySightings[i].stale(rc.getRoundNum())) {
+            if (bestScore > loc.distanceSquaredTo(enemySightings[i].location) + distanceSquaredToNearestAllyFlag(enemySightings[i].location) * 10 && !enemySightings[i].stale(Turn.round)) {
                 bestScore = loc.distanceSquaredTo(enemySightings[i].location) + distanceSquaredToNearestAllyFlag(enemySightings[i].location) * 10;
                 priority = enemySightings[i].location;
             }
@@ -361,14 +416,6 @@ public class Communications {
         return priority;
     }
 
-    public int nearestDam(MapLocation loc) {
-        int dist = ((loc.x - rc.getMapWidth()) * (loc.x - rc.getMapWidth()) + (loc.y - rc.getMapHeight()) * (loc.y - rc.getMapHeight())) * 10;  // tiebreak by dist to center
-        for (int i = nDams; i --> 0; ) {
-            dist = Math.min(dist, loc.distanceSquaredTo(dams[i]));
-        }
-        return dist;
-    }
-
     public int distanceSquaredToNearestAllyFlag(MapLocation loc) {
         final int dist0 = allyFlags[0] == null ? 1_000_000 : loc.distanceSquaredTo(allyFlags[0]);
         final int dist1 = allyFlags[1] == null ? 1_000_000 : loc.distanceSquaredTo(allyFlags[1]);
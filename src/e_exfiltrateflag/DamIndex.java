@@ -0,0 +1,82 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Known dam tiles, deduplicated with a bitset and grouped into BUCKET x BUCKET squares so that nearest dam queries only
+ * look at the buckets around the query instead of every dam we've heard about.
+ */
+public class DamIndex {
+    final static int BUCKET = 6;
+    final static int BUCKETS_X = GameConstants.MAP_MAX_WIDTH / BUCKET;
+    final static int BUCKETS_Y = GameConstants.MAP_MAX_HEIGHT / BUCKET;
+    final static int NONE = 1_000_000;
+
+    // Bit y of known[x] is set if (x, y) is a known dam
+    static long[] known = new long[GameConstants.MAP_MAX_WIDTH];
+
+    // Dams are packed as x * MAP_MAX_HEIGHT + y
+    static int[][] bucket = new int[BUCKETS_X * BUCKETS_Y][BUCKET * BUCKET];
+    static int[] bucketSize = new int[BUCKETS_X * BUCKETS_Y];
+    static int count = 0;
+
+    static void add(int x, int y) {
+        if ((known[x] >>> y & 1) != 0) return;
+        known[x] |= 1L << y;
+        final int b = (x / BUCKET) * BUCKETS_Y + y / BUCKET;
+        bucket[b][bucketSize[b]++] = x * GameConstants.MAP_MAX_HEIGHT + y;
+        ++count;
+    }
+
+    static boolean isDam(int x, int y) {
+        return (known[x] >>> y & 1) != 0;
+    }
+
+    private static int best;
+    private static int bestDist;
+
+    // Packed location of the nearest known dam, or -1 if we don't know about any
+    private static int nearestPacked(MapLocation loc) {
+        best = -1;
+        bestDist = NONE;
+        if (count == 0) return -1;
+        final int bx = loc.x / BUCKET, by = loc.y / BUCKET;
+        for (int r = 0; r < BUCKETS_X || r < BUCKETS_Y; ++r) {
+            // Scan the square ring of buckets at Chebyshev distance r
+            final int x0 = bx - r, x1 = bx + r, y0 = by - r, y1 = by + r;
+            for (int i = Math.max(x0, 0), end = Math.min(x1, BUCKETS_X - 1); i <= end; ++i) {
+                if (y0 >= 0) scan(i * BUCKETS_Y + y0, loc);
+                if (r > 0 && y1 < BUCKETS_Y) scan(i * BUCKETS_Y + y1, loc);
+            }
+            for (int j = Math.max(y0 + 1, 0), end = Math.min(y1 - 1, BUCKETS_Y - 1); j <= end; ++j) {
+                if (x0 >= 0) scan(x0 * BUCKETS_Y + j, loc);
+                if (r > 0 && x1 < BUCKETS_X) scan(x1 * BUCKETS_Y + j, loc);
+            }
+            // Every tile in ring r + 1 or beyond is at least r * BUCKET + 1 tiles away in x or y
+            final int reach = r * BUCKET + 1;
+            if (best != -1 && bestDist <= reach * reach) break;
+        }
+        return best;
+    }
+
+    private static void scan(int b, MapLocation loc) {
+        for (int k = bucketSize[b]; k --> 0; ) {
+            final int dx = bucket[b][k] / GameConstants.MAP_MAX_HEIGHT - loc.x;
+            final int dy = bucket[b][k] % GameConstants.MAP_MAX_HEIGHT - loc.y;
+            if (dx * dx + dy * dy < bestDist) {
+                bestDist = dx * dx + dy * dy;
+                best = bucket[b][k];
+            }
+        }
+    }
+
+    static int nearestDam(MapLocation loc) {
+        nearestPacked(loc);
+        return bestDist;
+    }
+
+    static MapLocation nearestDamLocation(MapLocation loc) {
+        final int packed = nearestPacked(loc);
+        return packed == -1 ? null : new MapLocation(packed / GameConstants.MAP_MAX_HEIGHT, packed % GameConstants.MAP_MAX_HEIGHT);
+    }
+}
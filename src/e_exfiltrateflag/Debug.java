@@ -0,0 +1,30 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Indicator and logging helpers. The flags come from DebugFlags, which the generateDebugFlags Gradle task writes from
+ * the devBuild, showIndicators, outputVerbose and debugRobotId properties. They're compile-time constants, so javac
+ * drops every `if (INDICATORS) ...` or `if (LOGGING) ...` block in tournament builds along with the strings built
+ * inside it. Always guard call sites with the matching flag; the checks in here only make unguarded calls harmless.
+ */
+public class Debug {
+    final static boolean INDICATORS = DebugFlags.INDICATORS;
+    final static boolean LOGGING = DebugFlags.LOGGING;
+
+    static void dot(RobotController rc, MapLocation loc, int r, int g, int b) {
+        if (INDICATORS && loc != null) rc.setIndicatorDot(loc, r, g, b);
+    }
+
+    static void line(RobotController rc, MapLocation from, MapLocation to, int r, int g, int b) {
+        if (INDICATORS && from != null && to != null) rc.setIndicatorLine(from, to, r, g, b);
+    }
+
+    static void log(RobotController rc, String s) {
+        if (LOGGING && (DebugFlags.LOG_ROBOT_ID == -1 || rc.getID() == DebugFlags.LOG_ROBOT_ID)) System.out.println(s);
+    }
+
+    static void logBytecode(RobotController rc, String s) {
+        if (LOGGING && (DebugFlags.LOG_ROBOT_ID == -1 || rc.getID() == DebugFlags.LOG_ROBOT_ID)) System.out.println(s + " " + Clock.getBytecodeNum());
+    }
+}
@@ -3,8 +3,6 @@ package e_exfiltrateflag;
 import battlecode.common.MapLocation;
 
 public class EnemySighting {
-    final static int STALE = 4;
-    final static int NEARBY_DIST = 10;
     MapLocation location;
     int lastUpdate;
 
@@ -27,10 +25,10 @@ public class EnemySighting {
     }
 
     public boolean near(MapLocation location) {
-        return this.location.isWithinDistanceSquared(location, NEARBY_DIST);
+        return this.location.isWithinDistanceSquared(location, Params.ENEMY_SIGHTING_NEARBY_DIST);
     }
 
     public boolean stale(int round) {
-        return lastUpdate + STALE <= round;
+        return lastUpdate + Params.ENEMY_SIGHTING_STALE <= round;
     }
 }
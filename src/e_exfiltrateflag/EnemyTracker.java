@@ -0,0 +1,76 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Remembers enemies across turns so micro can tell which of them can actually attack before our next turn.
+ * Enemies are stored in direct-mapped tables indexed by a hash of their ID. A collision just replaces the old robot,
+ * which costs us its history and nothing else. Allies are stored by their Roster index.
+ * An enemy that attacked is noticed when an ally loses health and exactly one visible enemy was close enough to have
+ * hit it. Movement isn't tracked: a move only costs one turn of cooldown, so an enemy that just moved can move again.
+ */
+public class EnemyTracker {
+    final static int SIZE = 256;
+
+    // Enemy table. Entries are empty or stale unless enemyId[h] matches.
+    static int[] enemyId = new int[SIZE];
+    static int[] enemyAttacked = new int[SIZE];
+
+    // Ally table, only used to spot health drops
+    static MapLocation[] allyLoc = new MapLocation[GameConstants.ROBOT_CAPACITY];
+    static int[] allyHealth = new int[GameConstants.ROBOT_CAPACITY];
+    static int[] allySeen = new int[GameConstants.ROBOT_CAPACITY];
+
+    static int myHealth = -1;
+    static MapLocation myLoc = null;
+
+    private static int hash(int id) {
+        return (id ^ (id >>> 8)) & (SIZE - 1);
+    }
+
+    static void update(RobotInfo[] enemies, RobotInfo[] allies) {
+        for (int i = enemies.length; i --> 0; ) {
+            final int h = hash(enemies[i].ID);
+            if (enemyId[h] != enemies[i].ID) {
+                enemyId[h] = enemies[i].ID;
+                enemyAttacked[h] = -1;
+            }
+        }
+
+        for (int i = allies.length; i --> 0; ) {
+            final int r = Roster.indexOf(allies[i].ID);
+            if (r == -1) continue;  // haven't heard their roster broadcast yet
+            if (allySeen[r] == Turn.round - 1 && allies[i].health < allyHealth[r]) {
+                blame(enemies, allyLoc[r], allies[i].location);
+            }
+            allyLoc[r] = allies[i].location;
+            allyHealth[r] = allies[i].health;
+            allySeen[r] = Turn.round;
+        }
+
+        if (myHealth != -1 && Turn.health < myHealth) blame(enemies, myLoc, Turn.loc);
+        myHealth = Turn.health;
+        myLoc = Turn.loc;
+    }
+
+    // Someone attacked the ally that was at before and is now at after. Only blame an enemy if it's the only suspect.
+    private static void blame(RobotInfo[] enemies, MapLocation before, MapLocation after) {
+        int suspect = -1;
+        for (int i = enemies.length; i --> 0; ) {
+            if (enemies[i].location.isWithinDistanceSquared(before, GameConstants.ATTACK_RADIUS_SQUARED) ||
+                    enemies[i].location.isWithinDistanceSquared(after, GameConstants.ATTACK_RADIUS_SQUARED)) {
+                if (suspect != -1) return;
+                suspect = i;
+            }
+        }
+        if (suspect != -1) enemyAttacked[hash(enemies[suspect].ID)] = Turn.round;
+    }
+
+    // An enemy that attacked since our last turn still has at least cooldown - 10 left, and can't attack again until
+    // that is under 10. Anything we aren't sure about is assumed to be ready.
+    static boolean canAttackNext(RobotInfo enemy) {
+        final int h = hash(enemy.ID);
+        return enemyId[h] != enemy.ID || enemyAttacked[h] != Turn.round ||
+                SkillType.ATTACK.getCooldown(enemy.attackLevel) < 2 * GameConstants.COOLDOWNS_PER_TURN;
+    }
+}
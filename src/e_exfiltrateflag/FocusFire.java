@@ -0,0 +1,74 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Shared focus targets so that ducks in the same fight hit the same enemy instead of spreading damage around.
+ * Each of the FOCUS_SLOTS shared array slots holds one engagement's target as (hits left, round parity, tile) + 1.
+ * Whoever attacks a target writes how many more of our hits it should take to die, so later ducks in the round know
+ * whether to pile on or switch to something else. Slots from an earlier round are cleared by whoever reads them first.
+ */
+public class FocusFire {
+    final static int MAX_HITS = 8;  // (8 * 2 + 1) * 3600 + 3599 + 1 still fits in 16 bits
+    final static int TILES = GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_HEIGHT;
+    final static int ENGAGEMENT_RADIUS_SQUARED = 20;
+
+    static int[] focusTile = {-1, -1, -1, -1};
+    static int[] focusHits = new int[Communications.FOCUS_SLOTS];
+
+    static void read(RobotController rc) throws GameActionException {
+        final int parity = Turn.round & 1;
+        for (int s = Communications.FOCUS_SLOTS; s --> 0; ) {
+            final int value = rc.readSharedArray(Communications.FOCUS_START + s);
+            if (value == 0) {
+                focusTile[s] = -1;
+            } else if ((value - 1) / TILES % 2 != parity) {
+                focusTile[s] = -1;
+                rc.writeSharedArray(Communications.FOCUS_START + s, 0);
+            } else {
+                focusTile[s] = (value - 1) % TILES;
+                focusHits[s] = (value - 1) / TILES / 2;
+            }
+        }
+    }
+
+    private static int slotOf(MapLocation loc) {
+        final int tile = loc.x * GameConstants.MAP_MAX_HEIGHT + loc.y;
+        for (int s = Communications.FOCUS_SLOTS; s --> 0; ) {
+            if (focusTile[s] == tile) return s;
+        }
+        return -1;
+    }
+
+    // Extra score for attacking target. Focus targets that still need hits are preferred, and ones that are already
+    // covered are avoided since more damage there would probably be wasted.
+    static int bonus(MapLocation target) {
+        final int s = slotOf(target);
+        if (s == -1) return 0;
+        return focusHits[s] > 0 ? Params.FOCUS_BONUS : -Params.COVERED_PENALTY;
+    }
+
+    // Records our hit on target. If it isn't a focus target yet, it becomes one unless its fight already has one.
+    static void attacked(RobotController rc, RobotInfo target, int damage) throws GameActionException {
+        final int remaining = target.health - damage;
+        final int hits = remaining <= 0 ? 0 : Math.min((remaining + damage - 1) / damage, MAX_HITS);
+        int s = slotOf(target.location);
+        if (s == -1) {
+            for (int t = Communications.FOCUS_SLOTS; t --> 0; ) {
+                if (focusTile[t] == -1) {
+                    s = t;
+                } else if (focusHits[t] > 0) {
+                    final int dx = focusTile[t] / GameConstants.MAP_MAX_HEIGHT - target.location.x;
+                    final int dy = focusTile[t] % GameConstants.MAP_MAX_HEIGHT - target.location.y;
+                    if (dx * dx + dy * dy <= ENGAGEMENT_RADIUS_SQUARED) return;
+                }
+            }
+            if (s == -1) return;
+        }
+        focusTile[s] = target.location.x * GameConstants.MAP_MAX_HEIGHT + target.location.y;
+        focusHits[s] = hits;
+        rc.writeSharedArray(Communications.FOCUS_START + s, (hits * 2 + (Turn.round & 1)) * TILES + focusTile[s] + 1);
+        if (Debug.INDICATORS) Debug.dot(rc, target.location, 255, 0, 255);
+        if (Debug.LOGGING) Debug.log(rc, "focusing " + target.location + " in slot " + s + ", " + hits + " hits left");
+    }
+}
@@ -0,0 +1,61 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Lets healers that are walking toward a damaged ally say so, so the next healers in the turn order pick someone else.
+ * Heals themselves don't need to be announced since they show up in the ally's health right away.
+ * Each of the HEAL_SLOTS shared array slots holds (heals claimed, round parity, tile) + 1, laid out like FocusFire's.
+ * Claims only last for the round they were made in.
+ */
+public class HealClaims {
+    final static int MAX_HEALS = 8;
+    final static int TILES = GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_HEIGHT;
+
+    static int[] claimTile = {-1, -1, -1, -1};
+    static int[] claimHeals = new int[Communications.HEAL_SLOTS];
+
+    static void read(RobotController rc) throws GameActionException {
+        final int parity = Turn.round & 1;
+        for (int s = Communications.HEAL_SLOTS; s --> 0; ) {
+            final int value = rc.readSharedArray(Communications.HEAL_START + s);
+            if (value == 0) {
+                claimTile[s] = -1;
+            } else if ((value - 1) / TILES % 2 != parity) {
+                claimTile[s] = -1;
+                rc.writeSharedArray(Communications.HEAL_START + s, 0);
+            } else {
+                claimTile[s] = (value - 1) % TILES;
+                claimHeals[s] = (value - 1) / TILES / 2;
+            }
+        }
+    }
+
+    private static int slotOf(MapLocation loc) {
+        final int tile = loc.x * GameConstants.MAP_MAX_HEIGHT + loc.y;
+        for (int s = Communications.HEAL_SLOTS; s --> 0; ) {
+            if (claimTile[s] == tile) return s;
+        }
+        return -1;
+    }
+
+    // How much healing other healers have already promised the ally at loc
+    static int claimed(MapLocation loc, int healAmount) {
+        final int s = slotOf(loc);
+        return s == -1 ? 0 : claimHeals[s] * healAmount;
+    }
+
+    static void claim(RobotController rc, MapLocation loc) throws GameActionException {
+        int s = slotOf(loc);
+        if (s == -1) {
+            for (int t = Communications.HEAL_SLOTS; t --> 0 && s == -1; ) {
+                if (claimTile[t] == -1) s = t;
+            }
+            if (s == -1) return;
+            claimTile[s] = loc.x * GameConstants.MAP_MAX_HEIGHT + loc.y;
+            claimHeals[s] = 0;
+        }
+        if (claimHeals[s] < MAX_HEALS) ++claimHeals[s];
+        rc.writeSharedArray(Communications.HEAL_START + s, (claimHeals[s] * 2 + (Turn.round & 1)) * TILES + claimTile[s] + 1);
+    }
+}
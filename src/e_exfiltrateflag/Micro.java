@@ -0,0 +1,106 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Picks a move and an attack together. Every square we could end up on gets a score from how many enemies threaten it
+ * (and, when pushing, how close it is to the enemy and whose territory it's in). Every enemy we could hit gets a score
+ * from its health, levels and whether we'd kill it. The best (square, target) pair wins, where a target counts for a
+ * square if we can hit it from there or from where we're standing now, since we can always attack before moving.
+ * Scores are separable, so this is a single pass over squares x targets, and targets are dropped once bytecode gets low.
+ * Targets that other ducks are focusing on get a bonus from FocusFire. The weights are in Params.
+ */
+public class Micro {
+    final static int BYTECODE_RESERVE = 2500;
+    final static int REACH_RADIUS_SQUARED = 10;  // farthest an enemy can be and still be attackable after one step
+
+    final static int NO_MOVE = -1_000_000_000;
+
+    final static Direction[] DIRECTIONS = Direction.values();  // index 8 is CENTER
+
+    static MapLocation[] square = new MapLocation[9];
+    static int[] moveScore = new int[9];
+
+    static int bestDir;
+    static int bestTarget;
+
+    /**
+     * @param enemyReachCount how many enemies can attack each square, in Direction.values() order
+     * @param threatWeight    how much one threatening enemy costs
+     * @param aggressive      whether to favor squares closer to the enemy and in their territory
+     */
+    static void act(RobotController rc, RobotInfo[] enemies, int[] enemyReachCount, int threatWeight, boolean aggressive) throws GameActionException {
+        final RobotInfo nearestEnemy = aggressive ? Util.nearestRobot(Turn.loc, enemies) : null;
+        bestDir = 8;
+        bestTarget = -1;
+        int bestScore = NO_MOVE;
+        for (int d = 9; d --> 0; ) {
+            if (d != 8 && !(Turn.movementReady && rc.canMove(DIRECTIONS[d]))) {
+                moveScore[d] = NO_MOVE;
+                continue;
+            }
+            square[d] = Turn.loc.add(DIRECTIONS[d]);
+            int score = -enemyReachCount[d] * threatWeight;
+            if (d == 8) score += Params.STAY_BONUS;
+            if (aggressive) {
+                score -= Util.chebyshevDistance(square[d], nearestEnemy.location) * Params.APPROACH_WEIGHT;
+                if (rc.senseMapInfo(square[d]).getTeamTerritory() == Turn.opponent) score += Params.TERRITORY_BONUS;
+            }
+            moveScore[d] = score;
+            if (bestScore < score) {
+                bestScore = score;
+                bestDir = d;
+            }
+        }
+
+        if (Turn.actionReady) {
+            final int damage = rc.getAttackDamage();
+            for (int t = enemies.length; t --> 0; ) {
+                if (Clock.getBytecodesLeft() < BYTECODE_RESERVE) break;
+                final MapLocation loc = enemies[t].location;
+                if (!Turn.loc.isWithinDistanceSquared(loc, REACH_RADIUS_SQUARED)) continue;
+
+                final int value = targetValue(enemies[t], damage);
+                final boolean inRangeNow = Turn.loc.isWithinDistanceSquared(loc, GameConstants.ATTACK_RADIUS_SQUARED);
+                for (int d = 9; d --> 0; ) {
+                    if (moveScore[d] == NO_MOVE) continue;
+                    if (moveScore[d] + value > bestScore && (inRangeNow || square[d].isWithinDistanceSquared(loc, GameConstants.ATTACK_RADIUS_SQUARED))) {
+                        bestScore = moveScore[d] + value;
+                        bestDir = d;
+                        bestTarget = t;
+                    }
+                }
+            }
+        }
+
+        if (Debug.INDICATORS) {
+            Debug.dot(rc, Turn.loc.add(DIRECTIONS[bestDir]), 255, 128, 0);
+            if (bestTarget != -1) Debug.line(rc, Turn.loc.add(DIRECTIONS[bestDir]), enemies[bestTarget].location, 255, 0, 0);
+        }
+
+        // Attack first if we can, so that moving away afterwards doesn't put the target out of range
+        if (bestTarget != -1 && rc.canAttack(enemies[bestTarget].location)) {
+            attack(rc, enemies[bestTarget]);
+        }
+        if (bestDir != 8 && rc.canMove(DIRECTIONS[bestDir])) {
+            Util.move(rc, DIRECTIONS[bestDir]);
+        }
+        if (bestTarget != -1 && rc.canAttack(enemies[bestTarget].location)) {
+            attack(rc, enemies[bestTarget]);
+        }
+    }
+
+    private static void attack(RobotController rc, RobotInfo target) throws GameActionException {
+        final int damage = rc.getAttackDamage();
+        rc.attack(target.location);
+        Turn.acted(rc);
+        FocusFire.attacked(rc, target, damage);
+    }
+
+    static int targetValue(RobotInfo enemy, int damage) {
+        return Params.HIT_BONUS + GameConstants.DEFAULT_HEALTH - enemy.health + enemy.attackLevel + enemy.healLevel + enemy.buildLevel +
+                (enemy.health <= damage ? Params.KILL_BONUS : 0) +
+                (enemy.hasFlag ? Params.FLAG_CARRIER_BONUS : 0) +
+                FocusFire.bonus(enemy.location);
+    }
+}
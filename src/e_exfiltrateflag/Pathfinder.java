@@ -0,0 +1,334 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Incremental D* Lite planner. The search runs backwards from the goal tiles, so the robot's own moves only shift the
+ * heuristic (tracked with km) and learning a new wall only repairs the tiles around it. All state lives in static
+ * arrays and survives across turns, and each turn only gets a fixed slice of bytecode. Until a search finishes, callers
+ * get null and should fall back to greedy movement.
+ * Tiles are indexed with a one-tile border around the map so neighbors never need bounds checks. The border is walled
+ * off when we first see the map size. Unknown tiles are assumed to be passable.
+ */
+public class Pathfinder {
+    final static int INF = 65535;
+    final static int STRIDE = GameConstants.MAP_MAX_HEIGHT + 2;
+    final static int SIZE = (GameConstants.MAP_MAX_WIDTH + 2) * STRIDE;
+
+    final static int BYTECODE_SLICE = 6000;
+    final static int BYTECODE_RESERVE = 3000;  // always leave this much for the rest of the turn
+    final static int DRAWN_STEPS = 10;  // how much of the path dev builds show
+
+    // order matches Direction.values(), which clones the array on every call
+    final static Direction[] DIRECTIONS = Direction.values();
+    final static int[] NEIGHBOR_OFFSETS = {1, STRIDE + 1, STRIDE, STRIDE - 1, -1, -STRIDE - 1, -STRIDE, -STRIDE + 1};
+
+    static boolean initialized = false;
+    static boolean[] wall = new boolean[SIZE];
+
+    // A tile whose stamp doesn't match searchId hasn't been touched by the current search, so g = rhs = INF.
+    static int searchId = 0;
+    static int[] stamp = new int[SIZE];
+    static int[] goalStamp = new int[SIZE];
+    static int[] g = new int[SIZE];
+    static int[] rhs = new int[SIZE];
+
+    // Binary heap of tile indexes. heapPos is 1-indexed so that 0 means the tile isn't queued.
+    static int[] heap = new int[SIZE];
+    static int[] heapKey = new int[SIZE];
+    static int[] heapPos = new int[SIZE];
+    static int heapSize = 0;
+
+    static int goalSignature = 0;
+    static int km = 0;
+    static int start = -1;
+    static int startX = 0, startY = 0;
+    static boolean done = false;
+
+    static int[] changed = new int[SIZE];
+    static int nChanged = 0;
+
+    static void init(RobotController rc) {
+        final int width = Turn.mapWidth, height = Turn.mapHeight;
+        for (int x = width + 2; x --> 0; ) {
+            wall[x * STRIDE] = true;
+            wall[x * STRIDE + height + 1] = true;
+        }
+        for (int y = height + 2; y --> 0; ) {
+            wall[y] = true;
+            wall[(width + 1) * STRIDE + y] = true;
+        }
+        initialized = true;
+    }
+
+    static int index(MapLocation loc) {
+        return (loc.x + 1) * STRIDE + loc.y + 1;
+    }
+
+    static void addWall(int x, int y) {
+        final int idx = (x + 1) * STRIDE + y + 1;
+        if (wall[idx]) return;
+        wall[idx] = true;
+        if (goalSignature != 0 && stamp[idx] == searchId) changed[nChanged++] = idx;
+    }
+
+    /**
+     * Advances the search toward target and returns the first step of the shortest known path.
+     *
+     * @return the direction to move in, or null if the search hasn't finished yet or the target is unreachable
+     */
+    static Direction directionTo(RobotController rc, MapLocation target) {
+        final int idx = index(target);
+        if (goalSignature != idx + 1) {
+            reset(rc);
+            goalSignature = idx + 1;
+            addGoal(idx);
+        }
+        return plan(rc);
+    }
+
+    /**
+     * Same as directionTo, but moves toward whichever of the goals is closest by path.
+     */
+    static Direction directionToAny(RobotController rc, MapLocation[] goals) {
+        int signature = goals.length;
+        for (int i = goals.length; i --> 0; ) {
+            signature = signature * 31 + index(goals[i]);
+        }
+        if (signature == 0) signature = 1;
+        if (goalSignature != signature) {
+            reset(rc);
+            goalSignature = signature;
+            for (int i = goals.length; i --> 0; ) {
+                addGoal(index(goals[i]));
+            }
+        }
+        return plan(rc);
+    }
+
+    private static void reset(RobotController rc) {
+        if (!initialized) init(rc);
+        ++searchId;
+        heapSize = 0;
+        km = 0;
+        nChanged = 0;
+        done = false;
+        start = index(Turn.loc);
+        startX = Turn.loc.x + 1;
+        startY = Turn.loc.y + 1;
+    }
+
+    private static void addGoal(int idx) {
+        touch(idx);
+        goalStamp[idx] = searchId;
+        rhs[idx] = 0;
+        push(idx, key(idx));
+    }
+
+    private static Direction plan(RobotController rc) {
+        final int bytecodeLimit = Clock.getBytecodeNum() + BYTECODE_SLICE;
+        final int current = index(Turn.loc);
+        if (current != start) {
+            // The robot moved, so every queued key is now too optimistic by at most this much
+            km += heuristic(current);
+            start = current;
+            startX = Turn.loc.x + 1;
+            startY = Turn.loc.y + 1;
+        }
+        touch(start);
+
+        if (nChanged > 0) {
+            done = false;
+            while (nChanged > 0) {
+                final int c = changed[--nChanged];
+                updateVertex(c);
+                for (int d = 8; d --> 0; ) {
+                    final int v = c + NEIGHBOR_OFFSETS[d];
+                    if (!wall[v]) updateVertex(v);
+                }
+            }
+        }
+
+        if (!done || heapSize > 0 && heapKey[heap[0]] < key(start)) {
+            done = computeShortestPath(bytecodeLimit);
+        }
+        if (!done || g[start] >= INF) return null;
+
+        int bestDist = g[start];
+        Direction bestDir = null;
+        for (int d = 8; d --> 0; ) {
+            final int v = start + NEIGHBOR_OFFSETS[d];
+            if (!wall[v] && stamp[v] == searchId && g[v] < bestDist) {
+                bestDist = g[v];
+                bestDir = DIRECTIONS[d];
+            }
+        }
+        if (Debug.INDICATORS) drawPath(rc);
+        return bestDir;
+    }
+
+    // Follows g downhill from the start, which is the path the robot will take if nothing changes
+    private static void drawPath(RobotController rc) {
+        int u = start;
+        for (int step = DRAWN_STEPS; step --> 0 && g[u] > 0; ) {
+            int next = u;
+            for (int d = 8; d --> 0; ) {
+                final int v = u + NEIGHBOR_OFFSETS[d];
+                if (!wall[v] && stamp[v] == searchId && g[v] < g[next]) next = v;
+            }
+            if (next == u) return;
+            u = next;
+            Debug.dot(rc, new MapLocation(u / STRIDE - 1, u % STRIDE - 1), 0, 255, 255);
+        }
+    }
+
+    private static boolean computeShortestPath(int bytecodeLimit) {
+        while (heapSize > 0) {
+            if (Clock.getBytecodeNum() > bytecodeLimit || Clock.getBytecodesLeft() < BYTECODE_RESERVE) return false;
+
+            final int u = heap[0];
+            final int oldKey = heapKey[u];
+            if (oldKey >= key(start) && rhs[start] == g[start]) return true;
+
+            final int newKey = key(u);
+            if (oldKey < newKey) {
+                heapKey[u] = newKey;
+                siftDown(1);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                pop();
+                // u only got cheaper, so its neighbors can relax against it directly instead of rescanning
+                final int through = g[u] + 1;
+                for (int d = 8; d --> 0; ) {
+                    final int v = u + NEIGHBOR_OFFSETS[d];
+                    if (wall[v]) continue;
+                    touch(v);
+                    if (through < rhs[v] && goalStamp[v] != searchId) {
+                        rhs[v] = through;
+                        queue(v);
+                    }
+                }
+            } else {
+                g[u] = INF;
+                updateVertex(u);
+                for (int d = 8; d --> 0; ) {
+                    final int v = u + NEIGHBOR_OFFSETS[d];
+                    if (!wall[v]) updateVertex(v);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void updateVertex(int u) {
+        touch(u);
+        if (goalStamp[u] != searchId) {
+            int best = INF;
+            if (!wall[u]) {
+                for (int d = 8; d --> 0; ) {
+                    final int v = u + NEIGHBOR_OFFSETS[d];
+                    if (!wall[v] && stamp[v] == searchId && g[v] < best) best = g[v];
+                }
+                if (best < INF) ++best;
+            }
+            rhs[u] = best;
+        }
+        queue(u);
+    }
+
+    // Puts u in the heap with an up-to-date key if it's inconsistent, otherwise takes it out.
+    private static void queue(int u) {
+        if (g[u] != rhs[u]) {
+            if (heapPos[u] == 0) {
+                push(u, key(u));
+            } else {
+                final int k = key(u);
+                final int pos = heapPos[u];
+                if (k < heapKey[u]) {
+                    heapKey[u] = k;
+                    siftUp(pos);
+                } else {
+                    heapKey[u] = k;
+                    siftDown(pos);
+                }
+            }
+        } else if (heapPos[u] != 0) {
+            remove(u);
+        }
+    }
+
+    private static void touch(int u) {
+        if (stamp[u] != searchId) {
+            stamp[u] = searchId;
+            g[u] = INF;
+            rhs[u] = INF;
+            heapPos[u] = 0;
+        }
+    }
+
+    private static int heuristic(int u) {
+        final int dx = Math.abs(u / STRIDE - startX);
+        final int dy = Math.abs(u % STRIDE - startY);
+        return dx > dy ? dx : dy;
+    }
+
+    // Lexicographic (min(g, rhs) + h + km, min(g, rhs)) packed into one int. The second component never exceeds 4095
+    // for finite values since paths are at most 3600 tiles long.
+    private static int key(int u) {
+        final int m = g[u] < rhs[u] ? g[u] : rhs[u];
+        return ((m + heuristic(u) + km) << 12) + (m < 4095 ? m : 4095);
+    }
+
+    private static void push(int u, int k) {
+        heap[heapSize++] = u;
+        heapKey[u] = k;
+        heapPos[u] = heapSize;
+        siftUp(heapSize);
+    }
+
+    private static void pop() {
+        remove(heap[0]);
+    }
+
+    private static void remove(int u) {
+        final int pos = heapPos[u];
+        heapPos[u] = 0;
+        final int last = heap[--heapSize];
+        if (pos - 1 == heapSize) return;
+        heap[pos - 1] = last;
+        heapPos[last] = pos;
+        siftDown(pos);
+        siftUp(heapPos[last]);
+    }
+
+    // Positions are 1-indexed
+    private static void siftUp(int pos) {
+        final int u = heap[pos - 1];
+        final int k = heapKey[u];
+        while (pos > 1) {
+            final int parent = heap[(pos >> 1) - 1];
+            if (heapKey[parent] <= k) break;
+            heap[pos - 1] = parent;
+            heapPos[parent] = pos;
+            pos >>= 1;
+        }
+        heap[pos - 1] = u;
+        heapPos[u] = pos;
+    }
+
+    private static void siftDown(int pos) {
+        final int u = heap[pos - 1];
+        final int k = heapKey[u];
+        while ((pos << 1) <= heapSize) {
+            int child = pos << 1;
+            if (child < heapSize && heapKey[heap[child]] < heapKey[heap[child - 1]]) ++child;
+            final int c = heap[child - 1];
+            if (heapKey[c] >= k) break;
+            heap[pos - 1] = c;
+            heapPos[c] = pos;
+            pos = child;
+        }
+        heap[pos - 1] = u;
+        heapPos[u] = pos;
+    }
+}
@@ -0,0 +1,41 @@
+package e_exfiltrateflag;
+
+/**
+ * Xorshift32 generator to replace java.util.Random, which pays for synchronized seed updates on every call.
+ * State is a static int, so every robot has its own stream. Seeding from the robot ID keeps runs deterministic, and the
+ * sequence only depends on this class, so offline tests see exactly what a robot with the same ID sees in game.
+ * Nothing here depends on battlecode classes; copy it into other packages as-is.
+ */
+public class Rng {
+    static int state = 0x6D2B79F5;
+
+    static void seed(int id) {
+        // Scramble the ID so that robots with consecutive IDs don't start out with similar states
+        int z = id * 0x9E3779B9;
+        z = (z ^ (z >>> 16)) * 0x85EBCA6B;
+        z = (z ^ (z >>> 13)) * 0xC2B2AE35;
+        z ^= z >>> 16;
+        state = z != 0 ? z : 0x6D2B79F5;  // xorshift gets stuck at 0
+    }
+
+    static int nextInt() {
+        state ^= state << 13;
+        state ^= state >>> 17;
+        state ^= state << 5;
+        return state;
+    }
+
+    /**
+     * Uniform value in [0, bound). Values from the incomplete block at the top of the 31-bit range are rejected so there
+     * is no modulo bias. At most half of all draws can be rejected, and for small bounds it almost never happens.
+     */
+    static int nextInt(int bound) {
+        int bits = nextInt() >>> 1;
+        int value = bits % bound;
+        while (bits - value + (bound - 1) < 0) {
+            bits = nextInt() >>> 1;
+            value = bits % bound;
+        }
+        return value;
+    }
+}
@@ -2,37 +2,36 @@ package e_exfiltrateflag;
 
 import battlecode.common.*;
 
-import java.util.Random;
-
+import static e_exfiltrateflag.Debug.*;
 import static e_exfiltrateflag.Util.*;
 
 public strictfp class RobotPlayer {
-    static Random rng;
     static Communications comms;
 
     static int idleTurns = 0;
     static int maxIdleTurns = 0;
 
-//    final static int MOVE_FLAGS = 10;
+    final static int MOVE_FLAGS = 10;  // give the flag ID mapping time to settle before anything moves
+    final static int FLAG_DROP_BUFFER = 10;  // flags must be down this many rounds before setup() stops running
+
+    static boolean movedFlag = false;
+    static int carriedFlagId = -1;
+    static MapLocation lastToRecover = null;  // where the flag we were recovering was last turn
+    static int lastRecoverRound = -1;
 
     @SuppressWarnings("unused")
     public static void run(RobotController rc) {
+        Turn.init(rc);
         comms = new Communications(rc);
-        rng = new Random(rc.getID());
+        Rng.seed(rc.getID());
 
-        final MapLocation[] spawnLocs = rc.getAllySpawnLocations();
-        // funny shuffle thing
-        for (int i = spawnLocs.length; i --> 0; ) {
-            final int j = rng.nextInt(i + 1);
-            MapLocation tmp = spawnLocs[i];
-            spawnLocs[i] = spawnLocs[j];
-            spawnLocs[j] = tmp;
-        }
+        SpawnIndex.init(rc);
 
         MapLocation[] allyFlagSpawns = new MapLocation[GameConstants.NUMBER_FLAGS];
 
         while (true) {
             try {
+                Turn.start(rc);
 //                int rnd = rc.getRoundNum();
                 if (rc.canBuyGlobal(GlobalUpgrade.ATTACK)) {
                     rc.buyGlobal(GlobalUpgrade.ATTACK);
@@ -43,32 +42,35 @@ public strictfp class RobotPlayer {
                 }
 
                 comms.readBroadcasts();
+                FocusFire.read(rc);
+                HealClaims.read(rc);
 
-//                debugBytecode(rc, "after readBroadcasts");
+//                if (LOGGING) logBytecode(rc, "after readBroadcasts");
 
-                if (rc.getRoundNum() <= 205 || allyFlagSpawns[0] == null) allyFlagSpawns[0] = Communications.allyFlags[0];
-                if (rc.getRoundNum() <= 205 || allyFlagSpawns[1] == null) allyFlagSpawns[1] = Communications.allyFlags[1];
-                if (rc.getRoundNum() <= 205 || allyFlagSpawns[2] == null) allyFlagSpawns[2] = Communications.allyFlags[2];
+                if (Turn.round <= 205 || allyFlagSpawns[0] == null) allyFlagSpawns[0] = Communications.allyFlags[0];
+                if (Turn.round <= 205 || allyFlagSpawns[1] == null) allyFlagSpawns[1] = Communications.allyFlags[1];
+                if (Turn.round <= 205 || allyFlagSpawns[2] == null) allyFlagSpawns[2] = Communications.allyFlags[2];
 
                 if (!rc.isSpawned()) {
-                    spawn(rc, spawnLocs, allyFlagSpawns);
+                    spawn(rc, allyFlagSpawns);
                 }
 
                 if (rc.isSpawned()) {
                     final MapInfo[] mapInfos = rc.senseNearbyMapInfos();
                     comms.addMapInfo(mapInfos);
+                    TrapRegistry.update(mapInfos, comms);
 
                     final FlagInfo[] flags = rc.senseNearbyFlags(GameConstants.VISION_RADIUS_SQUARED);
                     comms.addFlags(flags);
 
-                    final RobotInfo[] enemies = rc.senseNearbyRobots(GameConstants.VISION_RADIUS_SQUARED, rc.getTeam().opponent());
+                    final RobotInfo[] enemies = rc.senseNearbyRobots(GameConstants.VISION_RADIUS_SQUARED, Turn.opponent);
                     comms.addEnemies(enemies);
 
                     comms.broadcast();
 
-//                    debugBytecode(rc, "after broadcast");
+//                    if (LOGGING) logBytecode(rc, "after broadcast");
 
-                    if (rc.getRoundNum() <= GameConstants.SETUP_ROUNDS - Math.max(rc.getMapWidth(), rc.getMapHeight())) {
+                    if (Turn.round <= GameConstants.SETUP_ROUNDS - Math.max(Turn.mapWidth, Turn.mapHeight)) {
                         setup(rc);
                     } else {
                         play(rc, enemies, allyFlagSpawns);
@@ -89,142 +91,182 @@ public strictfp class RobotPlayer {
         }
     }
 
-    static void spawn(RobotController rc, MapLocation[] spawnLocs, MapLocation[] allyFlagSpawns) throws GameActionException {
+    static void spawn(RobotController rc, MapLocation[] allyFlagSpawns) throws GameActionException {
         final boolean stolen0 = Communications.allyFlags[0] != null && !Communications.allyFlags[0].equals(allyFlagSpawns[0]);
         final boolean stolen1 = Communications.allyFlags[1] != null && !Communications.allyFlags[1].equals(allyFlagSpawns[1]);
         final boolean stolen2 = Communications.allyFlags[2] != null && !Communications.allyFlags[2].equals(allyFlagSpawns[2]);
-        int minDist = 1_000_000;
-        int bestIdx = -1;
-        for (int i = spawnLocs.length; i --> 0; ) {
-            if (rc.canSpawn(spawnLocs[i])) {
-                if (stolen0 && spawnLocs[i].isWithinDistanceSquared(Communications.allyFlags[0], minDist)) {
-                    // Subtract 1 so that isWithinDistanceSquared is a strictly less than comparison
-                    minDist = spawnLocs[i].distanceSquaredTo(Communications.allyFlags[0]) - 1;
-                    bestIdx = i;
-                }
-                if (stolen1 && spawnLocs[i].isWithinDistanceSquared(Communications.allyFlags[1], minDist)) {
-                    minDist = spawnLocs[i].distanceSquaredTo(Communications.allyFlags[1]) - 1;
-                    bestIdx = i;
-                }
-                if (stolen2 && spawnLocs[i].isWithinDistanceSquared(Communications.allyFlags[2], minDist)) {
-                    minDist = spawnLocs[i].distanceSquaredTo(Communications.allyFlags[2]) - 1;
-                    bestIdx = i;
-                }
-                if (bestIdx == -1) bestIdx = i;
+        MapLocation spawnLoc = null;
+        if (stolen0 || stolen1 || stolen2) {
+            SpawnIndex.updateFlagDistances(Communications.allyFlags);
+            final int best = SpawnIndex.bestTarget(stolen0, stolen1, stolen2);
+            if (best != -1) {
+                final int zone = best / GameConstants.NUMBER_FLAGS;
+                spawnLoc = SpawnIndex.spawnableNear(rc, zone, Communications.allyFlags[best % GameConstants.NUMBER_FLAGS]);
             }
         }
-        if (bestIdx != -1) rc.spawn(spawnLocs[bestIdx]);
+        final boolean recovering = spawnLoc != null;
+        if (spawnLoc == null) spawnLoc = SpawnIndex.anySpawnable(rc);
+        if (spawnLoc != null) {
+            rc.spawn(spawnLoc);
+            Turn.start(rc);
+            // Get off the spawn tiles so the next robot has room, unless we're headed for a stolen flag anyway
+            if (!recovering) SpawnIndex.stepOut(rc);
+        }
     }
 
     static void setup(RobotController rc) throws GameActionException {
-//        for (int i = flags.length; i --> 0 && rc.getRoundNum() > MOVE_FLAGS;) {
-//            if (rc.canPickupFlag(flags[i].getLocation())) {
-//                rc.pickupFlag(flags[i].getLocation());
-//                break;
-//            }
-//        }
-//
-//        if (rc.hasFlag()) {
-//            if (rc.getRoundNum() >= 50) {
-//                final int nearestDam0 = comms.nearestDam(spawnZoneCenters[0]);
-//                final int nearestDam1 = comms.nearestDam(spawnZoneCenters[1]);
-//                final int nearestDam2 = comms.nearestDam(spawnZoneCenters[2]);
-//
-//                final int bestIndex = nearestDam0 >= nearestDam1 && nearestDam0 >= nearestDam2 ? 0 : (nearestDam1 >= nearestDam2 ? 1 : 2);
-//                tryMove(rc, rc.getLocation().directionTo(spawnZoneCenters[bestIndex]));
-//            }
-//        } else
-        if (!getCrumbs(rc)) {
+        final int setupEnd = GameConstants.SETUP_ROUNDS - Math.max(Turn.mapWidth, Turn.mapHeight);
+        if (!rc.hasFlag() && !movedFlag && Turn.round >= MOVE_FLAGS && Turn.round < setupEnd - FLAG_DROP_BUFFER) {
+            // Only take flags that are still in a spawn zone, so nobody picks up a flag that was already moved
+            final FlagInfo[] flags = rc.senseNearbyFlags(2, Turn.team);
+            for (int i = flags.length; i --> 0; ) {
+                final MapLocation flagLoc = flags[i].getLocation();
+                if (SpawnIndex.isSpawn(flagLoc) && DamIndex.nearestDam(flagLoc) < Params.FLAG_DAM_DISTANCE_SQUARED && rc.canPickupFlag(flagLoc)) {
+                    rc.pickupFlag(flagLoc);
+                    movedFlag = true;
+                    break;
+                }
+            }
+        }
+        if (rc.hasFlag()) {
+            relocateFlag(rc, setupEnd);
+        } else if (!getCrumbs(rc)) {
             fill(rc);
-            moveRandom(rc, rng);
+            moveRandom(rc);
+        }
+    }
+
+    // Carry our flag away from the nearest dam, and put it down once it's far enough or we're running out of setup
+    static void relocateFlag(RobotController rc, int setupEnd) throws GameActionException {
+        final MapLocation dam = DamIndex.nearestDamLocation(Turn.loc);
+        final boolean farEnough = dam == null || !Turn.loc.isWithinDistanceSquared(dam, Params.FLAG_DAM_DISTANCE_SQUARED - 1);
+        if (farEnough || Turn.round >= setupEnd - FLAG_DROP_BUFFER) {
+            if (tryDropFlag(rc)) return;
+        }
+        if (dam != null) tryMove(rc, dam.directionTo(Turn.loc));
+        if (INDICATORS) {
+            rc.setIndicatorString("relocating flag");
+            if (dam != null) line(rc, Turn.loc, dam, 255, 255, 0);
         }
     }
 
+    // Dams drop at the end of setup, so get everyone in position along them instead of wandering.
+    // Returns false if we don't know of any dams yet, in which case the caller moves as usual.
+    static boolean stageAtDams(RobotController rc) throws GameActionException {
+        final MapLocation dam = DamIndex.nearestDamLocation(Turn.loc);
+        if (dam == null) return false;
+        if (!Turn.loc.isWithinDistanceSquared(dam, Params.STAGE_DISTANCE_SQUARED)) {
+            tryMoveWithFill(rc, Turn.loc.directionTo(dam));
+        }
+        if (INDICATORS) rc.setIndicatorString("staging at dam " + dam);
+        return true;
+    }
+
     static void play(RobotController rc, RobotInfo[] enemies, MapLocation[] allyFlagSpawns) throws GameActionException {
-        FlagInfo[] flags = rc.senseNearbyFlags(GameConstants.VISION_RADIUS_SQUARED, rc.getTeam().opponent());
+        if (rc.hasFlag() && Turn.round <= GameConstants.SETUP_ROUNDS) tryDropFlag(rc);  // still holding our own flag
+
+        FlagInfo[] flags = rc.senseNearbyFlags(GameConstants.VISION_RADIUS_SQUARED, Turn.opponent);
         for (int i = flags.length; i --> 0; ) {
             if (rc.canPickupFlag(flags[i].getLocation())) {
                 rc.pickupFlag(flags[i].getLocation());
+                carriedFlagId = flags[i].getID();
                 break;
             }
         }
         if (rc.hasFlag()) {
-            tryMove(rc, rc.getLocation().directionTo(nearestLocation(rc.getLocation(), rc.getAllySpawnLocations())));
+            final Direction pathDir = Pathfinder.directionToAny(rc, SpawnIndex.tiles);
+            if (INDICATORS) line(rc, Turn.loc, SpawnIndex.nearestCenter(Turn.loc), 0, 255, 0);
+            tryMove(rc, pathDir != null ? pathDir : Turn.loc.directionTo(SpawnIndex.nearestCenter(Turn.loc)));
+            if (!rc.hasFlag()) {
+                comms.flagCaptured(carriedFlagId);
+                carriedFlagId = -1;
+            }
         }
+        final RobotInfo[] allies = rc.senseNearbyRobots(GameConstants.VISION_RADIUS_SQUARED, Turn.team);
+        EnemyTracker.update(enemies, allies);
+
         final int[] enemyReachCount = {  // order matches Direction.values()
-                rc.canMove(Direction.NORTH) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.NORTH)) : 1_000_000,
-                rc.canMove(Direction.NORTHEAST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.NORTHEAST)) : 1_000_000,
-                rc.canMove(Direction.EAST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.EAST)) : 1_000_000,
-                rc.canMove(Direction.SOUTHEAST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.SOUTHEAST)) : 1_000_000,
-                rc.canMove(Direction.SOUTH) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.SOUTH)) : 1_000_000,
-                rc.canMove(Direction.SOUTHWEST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.SOUTHWEST)) : 1_000_000,
-                rc.canMove(Direction.WEST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.WEST)) : 1_000_000,
-                rc.canMove(Direction.NORTHWEST) ? countEnemiesCanReach(rc, rc.getLocation().add(Direction.NORTHWEST)) : 1_000_000,
-                countEnemiesCanReach(rc, rc.getLocation()),
+                rc.canMove(Direction.NORTH) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.NORTH), enemies) : 1_000_000,
+                rc.canMove(Direction.NORTHEAST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.NORTHEAST), enemies) : 1_000_000,
+                rc.canMove(Direction.EAST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.EAST), enemies) : 1_000_000,
+                rc.canMove(Direction.SOUTHEAST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.SOUTHEAST), enemies) : 1_000_000,
+                rc.canMove(Direction.SOUTH) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.SOUTH), enemies) : 1_000_000,
+                rc.canMove(Direction.SOUTHWEST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.SOUTHWEST), enemies) : 1_000_000,
+                rc.canMove(Direction.WEST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.WEST), enemies) : 1_000_000,
+                rc.canMove(Direction.NORTHWEST) ? countEnemiesCanReach(rc, Turn.loc.add(Direction.NORTHWEST), enemies) : 1_000_000,
+                countEnemiesCanReach(rc, Turn.loc, enemies),
         };
 
-//        debugBytecode(rc, "after enemyReachCount");
+//        if (LOGGING) logBytecode(rc, "after enemyReachCount");
 
         // *Always* have one duck guarding the flag. Prioritize moves to guard/recover a flag.
         final boolean guarding = guardFlag(rc, allyFlagSpawns);
         final boolean recovering = !guarding && recoverFlag(rc, allyFlagSpawns);
+        Turn.acted(rc);
 
-        final RobotInfo[] allies = rc.senseNearbyRobots(GameConstants.VISION_RADIUS_SQUARED, rc.getTeam());
         if (enemies.length > 0) {
             fight(rc, enemies, allies, enemyReachCount);
-//            debugBytecode(rc, "after fight");
+            Turn.acted(rc);
+//            if (LOGGING) logBytecode(rc, "after fight");
         }
         if (recovering) {
             heal(rc, allies);  // we can still try healing as we move to the flag
-            rc.setIndicatorString("recovering stolen flag");
+            if (INDICATORS) rc.setIndicatorString("recovering stolen flag");
         } else if (heal(rc, allies)) {
-            rc.setIndicatorString("healed");
+            if (INDICATORS) rc.setIndicatorString("healed");
         } else if (guarding) {
-            rc.setIndicatorString("guarding flag");
+            if (INDICATORS) rc.setIndicatorString("guarding flag");
         }
+        Turn.acted(rc);
 
-        if (enemies.length == 0 && !guarding && !recovering) {
-            final MapLocation nearestEnemySighting = comms.prioritySighting(rc.getLocation());
+        // Staged ducks hold their spot instead of wandering off after crumbs or spreading out below
+        final boolean staging = enemies.length == 0 && !guarding && !recovering && Turn.round < GameConstants.SETUP_ROUNDS && stageAtDams(rc);
+        if (enemies.length == 0 && !guarding && !recovering && Turn.round >= GameConstants.SETUP_ROUNDS) {
+            final MapLocation nearestEnemySighting = comms.prioritySighting(Turn.loc);
             if (nearestEnemySighting != null) {
-                final Direction dir = rc.getLocation().directionTo(nearestEnemySighting);
+                final Direction dir = Turn.loc.directionTo(nearestEnemySighting);
                 tryMoveWithFill(rc, dir);
-                if (rc.isMovementReady() && rc.canFill(rc.getLocation().add(dir))) {
-                    rc.fill(rc.getLocation().add(dir));
+                if (Turn.movementReady && rc.canFill(Turn.loc.add(dir))) {
+                    rc.fill(Turn.loc.add(dir));
+                }
+                if (INDICATORS) {
+                    rc.setIndicatorString("moving to " + nearestEnemySighting);
+                    line(rc, Turn.loc, nearestEnemySighting, 255, 0, 0);
                 }
-                rc.setIndicatorString("moving to " + nearestEnemySighting);
             }
         }
 
-        if (!guarding) {
+        if (!guarding && !staging) {
             if (enemies.length > 0) {
                 moveSafe(rc, enemyReachCount);
-                rc.setIndicatorString("made safe move");
+                if (INDICATORS) rc.setIndicatorString("made safe move");
             } else if (getCrumbs(rc)) {
-                rc.setIndicatorString("getting crumbs");
+                if (INDICATORS) rc.setIndicatorString("getting crumbs");
             } else {
                 spreadOut(rc, allies);
-                rc.setIndicatorString("spreading out");
+                if (INDICATORS) rc.setIndicatorString("spreading out");
             }
         }
 
-        if (rc.isActionReady() && !guarding && !recovering) {
+        Turn.acted(rc);
+        if (Turn.actionReady && !guarding && !recovering) {
             maxIdleTurns = Math.max(maxIdleTurns, ++idleTurns);
             if (idleTurns >= 10) {
                 fill(rc);
-                if (maxIdleTurns >= 500 && rc.getLevel(SkillType.BUILD) < 6) dig(rc);  // Level up skills if we never do anything
+                if (maxIdleTurns >= 500 && Turn.buildLevel < 6) dig(rc);  // Level up skills if we never do anything
             }
-            rc.setIndicatorString("idle for " + idleTurns);
+            if (INDICATORS) rc.setIndicatorString("idle for " + idleTurns);
         } else idleTurns = 0;
 
-//        debugBytecode(rc, "end of play");
+//        if (LOGGING) logBytecode(rc, "end of play");
     }
 
-    // ideally we'd know enemies' movement cooldowns by tracking their moves but that is hard and scary to implement
-    // so for now just assume they can always move
-    static int countEnemiesCanReach(RobotController rc, MapLocation location) throws GameActionException {
-        final RobotInfo[] enemies = rc.senseNearbyRobots(location, 10, rc.getTeam().opponent());
+    // Enemies that just attacked are left out since they can't attack again before our next turn. We still don't know
+    // enemies' movement cooldowns, so assume they can always move.
+    static int countEnemiesCanReach(RobotController rc, MapLocation location, RobotInfo[] enemies) throws GameActionException {
         int count = 0;
         for (int i = enemies.length; i --> 0; ) {
+            if (!enemies[i].location.isWithinDistanceSquared(location, 10) || !EnemyTracker.canAttackNext(enemies[i])) continue;
             count += (enemies[i].location.isWithinDistanceSquared(location, GameConstants.ATTACK_RADIUS_SQUARED) ||
                     canMoveAndAct(rc, enemies[i].location.add(enemies[i].location.directionTo(location)), location) ||
                     canMoveAndAct(rc, enemies[i].location.add(enemies[i].location.directionTo(location).rotateLeft()), location) ||
@@ -236,12 +278,10 @@ public strictfp class RobotPlayer {
 
     /**
      * Handles situations where at least one enemy is visible.
-     * If our action is cooling down, move to whatever spot is in range of the least enemies or chase if we clearly outnumber the enemy.
-     * Otherwise:
-     * If we can kill an enemy, always do it.
-     * If we're outnumbered or at low health, move away and place a trap if there are enough enemies.
-     * If we clearly outnumber the enemy or are near the border of enemy territory, attack and move toward an enemy.
-     * Otherwise, attack and move to whatever spot is in range of the least enemies.
+     * Works out how careful to be and hands the actual move and attack to Micro.
+     * If we're outnumbered or at low health, weigh threats heavily and place a trap if there are enough enemies.
+     * If we clearly outnumber the enemy, mostly ignore threats and push toward the enemy and their territory.
+     * Otherwise, weigh threats normally. Kills and flag carriers are always worth a lot.
      *
      * @param rc              the RobotController
      * @param enemies         list of enemies
@@ -251,141 +291,31 @@ public strictfp class RobotPlayer {
     static void fight(RobotController rc, RobotInfo[] enemies, RobotInfo[] allies, int[] enemyReachCount) throws GameActionException {
         int allyHealth = 0; for (int i = allies.length; i --> 0; ) allyHealth += allies[i].health;
         int enemyHealth = 0; for (int i = enemies.length; i --> 0; ) enemyHealth += enemies[i].health;
-        if (rc.isActionReady()) {
-            RobotInfo[] enemiesInRange = rc.senseNearbyRobots(10, rc.getTeam().opponent());
-            final RobotInfo nearestEnemy = nearestRobot(rc.getLocation(), enemiesInRange.length > 0 ? enemiesInRange : enemies);
-
-            if (killEnemy(rc, enemiesInRange, enemyReachCount));
-            else if (runAway(rc, enemies, nearestEnemy, enemyReachCount, allyHealth, enemyHealth));
-            else if (beAggressive(rc, enemies, allies, allyHealth, enemyHealth));
-            else attackAndMoveAway(rc, enemiesInRange, enemyReachCount);
-        } else if (beAggressive(rc, enemies, allies, allyHealth, enemyHealth));
-        else moveSafe(rc, enemyReachCount);
-    }
 
-    static boolean killEnemy(RobotController rc, RobotInfo[] enemiesInRange, int[] enemyReachCount) throws GameActionException {
-        int bestIndex = -1;
-        Direction bestDir = null;
-        int bestScore = -1;
-
-        for (int i = enemiesInRange.length; i --> 0; ) {
-            if (enemiesInRange[i].health <= rc.getAttackDamage()) {
-                for (int d = 9; d --> 0; ) {
-                    final Direction dir = Direction.values()[d];
-                    if (rc.canMove(dir) && rc.getLocation().add(dir).isWithinDistanceSquared(enemiesInRange[i].location, GameConstants.ATTACK_RADIUS_SQUARED)) {
-                        final int score = (dir == Direction.CENTER ? 100 : 10) +
-                                (rc.senseMapInfo(rc.getLocation().add(dir)).getTeamTerritory() == rc.getTeam().opponent() ? 1000 : 10) -
-                                enemyReachCount[d];
-                        if (bestScore < score) {
-                            bestScore = score;
-                            bestIndex = i;
-                            bestDir = dir;
-                        }
-                    }
-                }
-            }
-        }
+        final boolean retreating = Turn.health < GameConstants.DEFAULT_HEALTH && (Turn.health <= Params.RETREAT_HEALTH || allyHealth < enemyHealth);
+        final boolean aggressive = !retreating && allyHealth >= enemyHealth * Params.AGGRESSIVE_HEALTH_RATIO && allyHealth >= enemyHealth + GameConstants.DEFAULT_HEALTH * 2 && allies.length * 100 >= enemies.length * Params.AGGRESSIVE_COUNT_PERCENT;
+        final boolean trapping = retreating && Turn.actionReady && enemies.length * rc.getCrumbs() >= Params.TRAP_CRUMB_THRESHOLD;
 
-        if (bestIndex != -1) {
-            if (bestDir != Direction.CENTER && rc.canMove(bestDir)) {
-                rc.move(bestDir);
-            }
-            if (rc.canAttack(enemiesInRange[bestIndex].location)) {
-                rc.attack(enemiesInRange[bestIndex].location);
-                return true;
+        if (trapping) {
+            final MapLocation nearestEnemy = nearestRobot(Turn.loc, enemies).location;
+            if (!TrapRegistry.tryBuild(rc, Turn.loc.add(Turn.loc.directionTo(nearestEnemy)), enemies)) {
+                TrapRegistry.tryBuild(rc, Turn.loc, enemies);
             }
+            Turn.acted(rc);
         }
-        return false;
-    }
 
-    static boolean runAway(RobotController rc, RobotInfo[] enemies, RobotInfo nearestEnemy, int[] enemyReachCount, int allyHealth, int enemyHealth) throws GameActionException {
-        if (rc.getHealth() < GameConstants.DEFAULT_HEALTH && (rc.getHealth() <= 450 || allyHealth < enemyHealth)) {
-            if (enemies.length * rc.getCrumbs() >= 4000) {
-                if (rc.canBuild(TrapType.STUN, rc.getLocation().add(rc.getLocation().directionTo(nearestEnemy.location)))) {
-                    // TODO: track where traps are and assume they go off when they disappear
-                    rc.build(TrapType.STUN, rc.getLocation().add(rc.getLocation().directionTo(nearestEnemy.location)));
-                } else if (rc.canBuild(TrapType.STUN, rc.getLocation())) {
-                    rc.build(TrapType.STUN, rc.getLocation());
-                }
-            }
-            tryMove(rc, Direction.values()[minIndex(enemyReachCount)]);
-            if (enemies.length * rc.getCrumbs() >= 4000) {
-                if (rc.canBuild(TrapType.STUN, rc.getLocation())) {
-                    rc.build(TrapType.STUN, rc.getLocation());
-                }
-            }
-            return true;
-        }
-        return false;
-    }
-
-    static boolean beAggressive(RobotController rc, RobotInfo[] enemies, RobotInfo[] allies, int allyHealth, int enemyHealth) throws GameActionException {
-        if (allyHealth >= enemyHealth * 2 && allyHealth >= enemyHealth + GameConstants.DEFAULT_HEALTH * 2 && allies.length * 2 >= enemies.length * 3) {
-            int attackScore = -1;
-            int bestIndex = -1;
-            Direction bestDir = Direction.CENTER;
-            for (int i = enemies.length; i --> 0;) {
-                final Direction dir = directionToReach(rc, enemies[i].location, GameConstants.ATTACK_RADIUS_SQUARED);
-                final int score = 1000 - enemies[i].health +
-                        enemies[i].healLevel + enemies[i].attackLevel + enemies[i].buildLevel +
-                        (dir != null ? 1000 : 0);
-                if (attackScore < score) {
-                    attackScore = score;
-                    bestIndex = i;
-                    bestDir = dir;
-                }
-            }
-
-            if (bestIndex != -1) {
-                if (bestDir == null) {
-                    // TODO: do some sort of pathfinding
-                    bestDir = rc.getLocation().directionTo(enemies[bestIndex].location);
-                }
-                if (bestDir != Direction.CENTER && rc.canMove(bestDir)) {
-                    rc.move(bestDir);
-                }
-                if (rc.canAttack(enemies[bestIndex].location)) {
-                    rc.attack(enemies[bestIndex].location);
-                }
-            }
-            return true;
-        }
-        return false;
-    }
-
-    static void attackAndMoveAway(RobotController rc, RobotInfo[] enemiesInRange, int[] enemyReachCount) throws GameActionException {
-        int bestScore = -1;
-        int bestIndex = -1;
-        Direction bestDir = Direction.values()[minIndex(enemyReachCount)];
-        for (int i = enemiesInRange.length; i --> 0;) {
-            for (int d = 9; d --> 0;) {
-                final Direction dir = Direction.values()[d];
-                if (rc.canMove(dir) && rc.getLocation().add(dir).isWithinDistanceSquared(enemiesInRange[i].location, GameConstants.ATTACK_RADIUS_SQUARED)) {
-                    final int score = 1000 - enemiesInRange[i].health + enemiesInRange[i].attackLevel + enemiesInRange[i].buildLevel + enemiesInRange[i].healLevel +
-                            100 - enemyReachCount[d];
-                    if (bestScore < score) {
-                        bestScore = score;
-                        bestIndex = i;
-                        bestDir = dir;
-                    }
-                }
-            }
-        }
+        Micro.act(rc, enemies, enemyReachCount,
+                retreating ? Params.RETREAT_THREAT_WEIGHT : (aggressive ? Params.AGGRESSIVE_THREAT_WEIGHT : Params.THREAT_WEIGHT), aggressive);
 
-        if (bestDir != Direction.CENTER && rc.canMove(bestDir)) {
-            rc.move(bestDir);
-        }
-        if (bestIndex != -1) {
-            if (rc.canAttack(enemiesInRange[bestIndex].location)) {
-                rc.attack(enemiesInRange[bestIndex].location);
-            }
+        if (trapping && Turn.actionReady) {
+            TrapRegistry.tryBuild(rc, Turn.loc, enemies);
         }
     }
 
     static void moveSafe(RobotController rc, int[] enemyReachCount) throws GameActionException {
         Direction bestDir = Direction.values()[minIndex(enemyReachCount)];
         if (bestDir != Direction.CENTER && rc.canMove(bestDir)) {
-            rc.move(bestDir);
+            move(rc, bestDir);
         }
     }
 
@@ -395,27 +325,35 @@ public strictfp class RobotPlayer {
             toRecover = Communications.allyFlags[0];
         }
         if (Communications.allyFlags[1] != null && allyFlagSpawns[1] != null && !Communications.allyFlags[1].equals(allyFlagSpawns[1])) {
-            if (toRecover == null || rc.getLocation().isWithinDistanceSquared(Communications.allyFlags[1], rc.getLocation().distanceSquaredTo(toRecover))) {
+            if (toRecover == null || Turn.loc.isWithinDistanceSquared(Communications.allyFlags[1], Turn.loc.distanceSquaredTo(toRecover))) {
                 toRecover = Communications.allyFlags[1];
             }
         }
         if (Communications.allyFlags[2] != null && allyFlagSpawns[2] != null && !Communications.allyFlags[2].equals(allyFlagSpawns[2])) {
-            if (toRecover == null || rc.getLocation().isWithinDistanceSquared(Communications.allyFlags[2], rc.getLocation().distanceSquaredTo(toRecover))) {
+            if (toRecover == null || Turn.loc.isWithinDistanceSquared(Communications.allyFlags[2], Turn.loc.distanceSquaredTo(toRecover))) {
                 toRecover = Communications.allyFlags[2];
             }
         }
 
         if (toRecover != null) {
             // If we're already on/next to flag, don't move. This blocks enemies from moving to flag and picking it up.
-            if (rc.canMove(Direction.NORTH) && rc.getLocation().add(Direction.NORTH).isAdjacentTo(toRecover)) rc.move(Direction.NORTH);
-            if (rc.canMove(Direction.NORTHEAST) && rc.getLocation().add(Direction.NORTHEAST).isAdjacentTo(toRecover)) rc.move(Direction.NORTHEAST);
-            if (rc.canMove(Direction.EAST) && rc.getLocation().add(Direction.EAST).isAdjacentTo(toRecover)) rc.move(Direction.EAST);
-            if (rc.canMove(Direction.SOUTHEAST) && rc.getLocation().add(Direction.SOUTHEAST).isAdjacentTo(toRecover)) rc.move(Direction.SOUTHEAST);
-            if (rc.canMove(Direction.SOUTH) && rc.getLocation().add(Direction.SOUTH).isAdjacentTo(toRecover)) rc.move(Direction.SOUTH);
-            if (rc.canMove(Direction.SOUTHWEST) && rc.getLocation().add(Direction.SOUTHWEST).isAdjacentTo(toRecover)) rc.move(Direction.SOUTHWEST);
-            if (rc.canMove(Direction.WEST) && rc.getLocation().add(Direction.WEST).isAdjacentTo(toRecover)) rc.move(Direction.WEST);
-            if (rc.canMove(Direction.NORTHWEST) && rc.getLocation().add(Direction.NORTHWEST).isAdjacentTo(toRecover)) rc.move(Direction.NORTHWEST);
-            if (!rc.getLocation().isWithinDistanceSquared(toRecover, 2)) tryMove(rc, rc.getLocation().directionTo(toRecover));
+            if (rc.canMove(Direction.NORTH) && Turn.loc.add(Direction.NORTH).isAdjacentTo(toRecover)) move(rc, Direction.NORTH);
+            if (rc.canMove(Direction.NORTHEAST) && Turn.loc.add(Direction.NORTHEAST).isAdjacentTo(toRecover)) move(rc, Direction.NORTHEAST);
+            if (rc.canMove(Direction.EAST) && Turn.loc.add(Direction.EAST).isAdjacentTo(toRecover)) move(rc, Direction.EAST);
+            if (rc.canMove(Direction.SOUTHEAST) && Turn.loc.add(Direction.SOUTHEAST).isAdjacentTo(toRecover)) move(rc, Direction.SOUTHEAST);
+            if (rc.canMove(Direction.SOUTH) && Turn.loc.add(Direction.SOUTH).isAdjacentTo(toRecover)) move(rc, Direction.SOUTH);
+            if (rc.canMove(Direction.SOUTHWEST) && Turn.loc.add(Direction.SOUTHWEST).isAdjacentTo(toRecover)) move(rc, Direction.SOUTHWEST);
+            if (rc.canMove(Direction.WEST) && Turn.loc.add(Direction.WEST).isAdjacentTo(toRecover)) move(rc, Direction.WEST);
+            if (rc.canMove(Direction.NORTHWEST) && Turn.loc.add(Direction.NORTHWEST).isAdjacentTo(toRecover)) move(rc, Direction.NORTHWEST);
+            if (INDICATORS) line(rc, Turn.loc, toRecover, 0, 0, 255);
+            if (!Turn.loc.isWithinDistanceSquared(toRecover, 2)) {
+                // A carried flag moves every turn and each new goal restarts the search, so only path to it once it stays put
+                final boolean stationary = lastRecoverRound == Turn.round - 1 && toRecover.equals(lastToRecover);
+                final Direction pathDir = stationary ? Pathfinder.directionTo(rc, toRecover) : null;
+                tryMove(rc, pathDir != null ? pathDir : Turn.loc.directionTo(toRecover));
+            }
+            lastToRecover = toRecover;
+            lastRecoverRound = Turn.round;
             return true;
         }
         return false;
@@ -435,29 +373,35 @@ public strictfp class RobotPlayer {
         if (rc.canBuild(TrapType.STUN, allyFlagSpawns[2].add(Direction.SOUTHWEST))) rc.build(TrapType.STUN, allyFlagSpawns[2].add(Direction.SOUTHWEST));
         if (rc.canBuild(TrapType.STUN, allyFlagSpawns[2].add(Direction.NORTHWEST))) rc.build(TrapType.STUN, allyFlagSpawns[2].add(Direction.NORTHWEST));
 
-        if (Communications.allyFlags[0] != null && allyFlagSpawns[0] != null && Communications.allyFlags[0].equals(allyFlagSpawns[0]) && ((rc.canSenseLocation(allyFlagSpawns[0]) && rc.senseRobotAtLocation(allyFlagSpawns[0]) == null) || rc.getLocation().equals(allyFlagSpawns[0]))) {
-            tryMove(rc, rc.getLocation().directionTo(allyFlagSpawns[0]));
+        if (Communications.allyFlags[0] != null && allyFlagSpawns[0] != null && Communications.allyFlags[0].equals(allyFlagSpawns[0]) && ((rc.canSenseLocation(allyFlagSpawns[0]) && rc.senseRobotAtLocation(allyFlagSpawns[0]) == null) || Turn.loc.equals(allyFlagSpawns[0]))) {
+            tryMove(rc, Turn.loc.directionTo(allyFlagSpawns[0]));
             return true;
         }
-        if (Communications.allyFlags[1] != null && allyFlagSpawns[1] != null && Communications.allyFlags[1].equals(allyFlagSpawns[1]) && ((rc.canSenseLocation(allyFlagSpawns[1]) && rc.senseRobotAtLocation(allyFlagSpawns[1]) == null) || rc.getLocation().equals(allyFlagSpawns[1]))) {
-            tryMove(rc, rc.getLocation().directionTo(allyFlagSpawns[1]));
+        if (Communications.allyFlags[1] != null && allyFlagSpawns[1] != null && Communications.allyFlags[1].equals(allyFlagSpawns[1]) && ((rc.canSenseLocation(allyFlagSpawns[1]) && rc.senseRobotAtLocation(allyFlagSpawns[1]) == null) || Turn.loc.equals(allyFlagSpawns[1]))) {
+            tryMove(rc, Turn.loc.directionTo(allyFlagSpawns[1]));
             return true;
         }
-        if (Communications.allyFlags[2] != null && allyFlagSpawns[2] != null && Communications.allyFlags[2].equals(allyFlagSpawns[2]) && ((rc.canSenseLocation(allyFlagSpawns[2]) && rc.senseRobotAtLocation(allyFlagSpawns[2]) == null) || rc.getLocation().equals(allyFlagSpawns[2]))) {
-            tryMove(rc, rc.getLocation().directionTo(allyFlagSpawns[2]));
+        if (Communications.allyFlags[2] != null && allyFlagSpawns[2] != null && Communications.allyFlags[2].equals(allyFlagSpawns[2]) && ((rc.canSenseLocation(allyFlagSpawns[2]) && rc.senseRobotAtLocation(allyFlagSpawns[2]) == null) || Turn.loc.equals(allyFlagSpawns[2]))) {
+            tryMove(rc, Turn.loc.directionTo(allyFlagSpawns[2]));
             return true;
         }
 
         return false;
     }
 
+    // Heals apply immediately, so healers later in the turn order already see what earlier ones did. Healers that
+    // have to walk first claim their target so that others don't all walk to the same ally.
     static boolean heal(RobotController rc, RobotInfo[] allies) throws GameActionException {
+        final int healAmount = rc.getHealAmount();
         int healScore = 0;
         int bestIndex = -1;
         for (int i = allies.length; i --> 0; ) {
-            final int score = 1000 - allies[i].health + allies[i].healLevel + allies[i].attackLevel + allies[i].buildLevel;
-            final int distPenalty = rc.getLocation().isWithinDistanceSquared(allies[i].location, GameConstants.HEAL_RADIUS_SQUARED) ? 0 : 700;
-            if (allies[i].health < GameConstants.DEFAULT_HEALTH && healScore < score - distPenalty) {
+            final int deficit = GameConstants.DEFAULT_HEALTH - allies[i].health - HealClaims.claimed(allies[i].location, healAmount);
+            if (deficit <= 0) continue;
+            final int score = 1000 - allies[i].health + allies[i].healLevel + allies[i].attackLevel + allies[i].buildLevel -
+                    Math.max(healAmount - deficit, 0);  // don't waste heals on allies that are nearly full
+            final int distPenalty = Turn.loc.isWithinDistanceSquared(allies[i].location, GameConstants.HEAL_RADIUS_SQUARED) ? 0 : Params.HEAL_DISTANCE_PENALTY;
+            if (healScore < score - distPenalty) {
                 healScore = score - distPenalty;
                 bestIndex = i;
             }
@@ -467,7 +411,9 @@ public strictfp class RobotPlayer {
             if (rc.canHeal(allies[bestIndex].location)) {
                 rc.heal(allies[bestIndex].location);
             } else {
-                tryMove(rc, rc.getLocation().directionTo(allies[bestIndex].location));
+                tryMove(rc, Turn.loc.directionTo(allies[bestIndex].location));
+                if (rc.canHeal(allies[bestIndex].location)) rc.heal(allies[bestIndex].location);
+                else HealClaims.claim(rc, allies[bestIndex].location);
             }
             return true;
         }
@@ -475,7 +421,7 @@ public strictfp class RobotPlayer {
     }
 
     static boolean interact(RobotController rc) throws GameActionException {
-        if (rng.nextInt(10) < 4) {
+        if (Rng.nextInt(10) < 4) {
             return fill(rc);
         } else {
             return dig(rc);
@@ -507,15 +453,15 @@ public strictfp class RobotPlayer {
     static boolean getCrumbs(RobotController rc) throws GameActionException {
         MapLocation[] crumbs = rc.senseNearbyCrumbs(GameConstants.VISION_RADIUS_SQUARED);
         if (crumbs.length > 0) {
-            rc.setIndicatorString("getting crumbs");
+            if (INDICATORS) rc.setIndicatorString("getting crumbs");
             MapLocation closestCrumb = crumbs[0];
             for (MapLocation crumb : crumbs) {
-                if (rc.getLocation().distanceSquaredTo(crumb) < rc.getLocation().distanceSquaredTo(closestCrumb)) {
+                if (Turn.loc.distanceSquaredTo(crumb) < Turn.loc.distanceSquaredTo(closestCrumb)) {
                     closestCrumb = crumb;
                 }
             }
 
-            tryMoveWithFill(rc, rc.getLocation().directionTo(closestCrumb));
+            tryMoveWithFill(rc, Turn.loc.directionTo(closestCrumb));
         }
         return false;
     }
@@ -523,15 +469,15 @@ public strictfp class RobotPlayer {
     static void spreadOut(RobotController rc, RobotInfo[] allies) throws GameActionException {
         int weightX = 0, weightY = 0;
         for (int i = allies.length; i --> 0;) {
-            if (rc.getLocation().x != allies[i].location.x) {
-                weightX += 1000 / (rc.getLocation().x - allies[i].location.x);
+            if (Turn.loc.x != allies[i].location.x) {
+                weightX += 1000 / (Turn.loc.x - allies[i].location.x);
             }
-            if (rc.getLocation().y != allies[i].location.y) {
-                weightY += 1000 / (rc.getLocation().y - allies[i].location.y);
+            if (Turn.loc.y != allies[i].location.y) {
+                weightY += 1000 / (Turn.loc.y - allies[i].location.y);
             }
         }
-        final int dx = rng.nextInt(101) - 50 + weightX;
-        final int dy = rng.nextInt(101) - 50 + weightY;
+        final int dx = Rng.nextInt(101) - 50 + weightX;
+        final int dy = Rng.nextInt(101) - 50 + weightY;
         final Direction dir = new MapLocation(0, 0).directionTo(new MapLocation(dx, dy));
         tryMoveWithFill(rc, dir);
     }
@@ -0,0 +1,67 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Dense indexes 0-49 for our ducks, so that per-duck state fits in small arrays instead of tables keyed by robot ID.
+ * Each duck takes the next index from the ROSTER slot on its first turn, then broadcasts its ID as two messages, the low
+ * and high byte, each tagged with its index. Everyone puts the halves back together into an ID to index hash table.
+ * IDs are assumed to fit in 16 bits, which they do since the engine hands them out from 10000 up.
+ */
+public class Roster {
+    final static int HASH_SIZE = 128;  // at least twice the number of ducks, so probes stay short
+    final static int DEADLINE = 10;  // round after which map broadcasts stop waiting for the roster to fill up
+    final static int REANNOUNCE_INTERVAL = 50;  // for ducks that ran out of bytecode and missed the first announcement
+
+    static boolean joined = false;
+    static int myIndex = -1;  // stays -1 if the roster was somehow full
+    static int lastAnnounced = -REANNOUNCE_INTERVAL;
+    static int known = 0;
+
+    static int[] id = new int[GameConstants.ROBOT_CAPACITY];
+    static int[] lowByte = new int[GameConstants.ROBOT_CAPACITY];
+    static int[] highByte = new int[GameConstants.ROBOT_CAPACITY];
+
+    // Open addressing from ID to index + 1, so that 0 is empty
+    static int[] hash = new int[HASH_SIZE];
+
+    static {
+        for (int i = GameConstants.ROBOT_CAPACITY; i --> 0; ) {
+            id[i] = lowByte[i] = highByte[i] = -1;
+        }
+    }
+
+    static void join(RobotController rc) throws GameActionException {
+        joined = true;
+        final int next = rc.readSharedArray(Communications.ROSTER);
+        if (next >= GameConstants.ROBOT_CAPACITY) return;
+        rc.writeSharedArray(Communications.ROSTER, next + 1);
+        myIndex = next;
+        add(next, Turn.id);
+    }
+
+    static int indexOf(int robotId) {
+        for (int h = robotId & (HASH_SIZE - 1); hash[h] != 0; h = (h + 1) & (HASH_SIZE - 1)) {
+            if (id[hash[h] - 1] == robotId) return hash[h] - 1;
+        }
+        return -1;
+    }
+
+    // payload is (index, one byte of the ID)
+    static void heard(boolean high, int payload) {
+        final int index = payload >>> 8;
+        if (id[index] != -1) return;
+        if (high) highByte[index] = payload & 255;
+        else lowByte[index] = payload & 255;
+        if (lowByte[index] != -1 && highByte[index] != -1) add(index, highByte[index] << 8 | lowByte[index]);
+    }
+
+    private static void add(int index, int robotId) {
+        if (id[index] != -1) return;
+        id[index] = robotId;
+        ++known;
+        int h = robotId & (HASH_SIZE - 1);
+        while (hash[h] != 0) h = (h + 1) & (HASH_SIZE - 1);
+        hash[h] = index + 1;
+    }
+}
@@ -0,0 +1,128 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Our spawn tiles, built once from getAllySpawnLocations so that spawning doesn't need to scan every tile each turn.
+ * Each zone is the 3x3 square around one of our flags' starting locations.
+ */
+public class SpawnIndex {
+    final static int ZONE_SIZE = 9;
+
+    static MapLocation[] tiles;  // shuffled so that robots don't all try the same tile first
+    static int zoneCount = 0;
+    static MapLocation[] centers = new MapLocation[GameConstants.NUMBER_FLAGS];
+    static MapLocation[][] zoneTiles = new MapLocation[GameConstants.NUMBER_FLAGS][ZONE_SIZE];
+
+    // Bit y of column[x] is set if (x, y) is a spawn tile. Heights are at most 60, so out of range y's read as unset.
+    static long[] column = new long[GameConstants.MAP_MAX_WIDTH];
+
+    // flagDist[z][f] is the squared distance from the center of zone z to ally flag f the last time it was updated
+    static int[][] flagDist = new int[GameConstants.NUMBER_FLAGS][GameConstants.NUMBER_FLAGS];
+
+    static void init(RobotController rc) {
+        tiles = rc.getAllySpawnLocations();
+        // funny shuffle thing
+        for (int i = tiles.length; i --> 0; ) {
+            final int j = Rng.nextInt(i + 1);
+            MapLocation tmp = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = tmp;
+        }
+
+        for (int i = tiles.length; i --> 0; ) {
+            column[tiles[i].x] |= 1L << tiles[i].y;
+        }
+        for (int i = tiles.length; i --> 0 && zoneCount < centers.length; ) {
+            final int x = tiles[i].x, y = tiles[i].y;
+            if (x > 0 && x + 1 < Turn.mapWidth &&
+                    (column[x - 1] >>> (y - 1) & 7) == 7 && (column[x] >>> (y - 1) & 7) == 7 && (column[x + 1] >>> (y - 1) & 7) == 7) {
+                centers[zoneCount] = tiles[i];
+                zoneTiles[zoneCount][0] = tiles[i];
+                for (int d = 8; d --> 0; ) {
+                    zoneTiles[zoneCount][d + 1] = tiles[i].add(Direction.values()[d]);
+                }
+                ++zoneCount;
+            }
+        }
+    }
+
+    static boolean isSpawn(int x, int y) {
+        return x >= 0 && x < column.length && (column[x] >>> y & 1) != 0;
+    }
+
+    static boolean isSpawn(MapLocation loc) {
+        return isSpawn(loc.x, loc.y);
+    }
+
+    static int zoneOf(MapLocation loc) {
+        for (int z = zoneCount; z --> 0; ) {
+            if (centers[z].isWithinDistanceSquared(loc, 2)) return z;
+        }
+        return -1;
+    }
+
+    static MapLocation nearestCenter(MapLocation loc) {
+        int dist = 1_000_000;
+        MapLocation nearest = null;
+        for (int z = zoneCount; z --> 0; ) {
+            if (dist > loc.distanceSquaredTo(centers[z])) {
+                dist = loc.distanceSquaredTo(centers[z]);
+                nearest = centers[z];
+            }
+        }
+        return nearest;
+    }
+
+    static void updateFlagDistances(MapLocation[] flags) {
+        for (int z = zoneCount; z --> 0; ) {
+            for (int f = flags.length; f --> 0; ) {
+                flagDist[z][f] = flags[f] == null ? 1_000_000 : centers[z].distanceSquaredTo(flags[f]);
+            }
+        }
+    }
+
+    // Returns zone * NUMBER_FLAGS + flag for the closest zone and flag among the targeted flags, or -1 if there are none
+    static int bestTarget(boolean target0, boolean target1, boolean target2) {
+        int minDist = 1_000_000;
+        int best = -1;
+        for (int z = zoneCount; z --> 0; ) {
+            if (target0 && flagDist[z][0] < minDist) { minDist = flagDist[z][0]; best = z * GameConstants.NUMBER_FLAGS; }
+            if (target1 && flagDist[z][1] < minDist) { minDist = flagDist[z][1]; best = z * GameConstants.NUMBER_FLAGS + 1; }
+            if (target2 && flagDist[z][2] < minDist) { minDist = flagDist[z][2]; best = z * GameConstants.NUMBER_FLAGS + 2; }
+        }
+        return best;
+    }
+
+    // The open tile in the zone that is closest to target, or null if the whole zone is blocked
+    static MapLocation spawnableNear(RobotController rc, int zone, MapLocation target) {
+        int minDist = 1_000_000;
+        MapLocation best = null;
+        for (int i = ZONE_SIZE; i --> 0; ) {
+            final MapLocation loc = zoneTiles[zone][i];
+            if (loc.isWithinDistanceSquared(target, minDist - 1) && rc.canSpawn(loc)) {
+                minDist = loc.distanceSquaredTo(target);
+                best = loc;
+            }
+        }
+        return best;
+    }
+
+    static MapLocation anySpawnable(RobotController rc) {
+        for (int i = tiles.length; i --> 0; ) {
+            if (rc.canSpawn(tiles[i])) return tiles[i];
+        }
+        return null;
+    }
+
+    // Moving away from the zone's center always leaves the zone from an edge tile, so only that direction and its two
+    // neighbors need to be checked. Robots on the center tile stay put and let the next turn handle it.
+    static void stepOut(RobotController rc) throws GameActionException {
+        final int zone = zoneOf(Turn.loc);
+        if (zone == -1 || Turn.loc.equals(centers[zone])) return;
+        final Direction dir = centers[zone].directionTo(Turn.loc);
+        if (rc.canMove(dir) && !isSpawn(Turn.loc.add(dir))) Util.move(rc, dir);
+        else if (rc.canMove(dir.rotateLeft()) && !isSpawn(Turn.loc.add(dir.rotateLeft()))) Util.move(rc, dir.rotateLeft());
+        else if (rc.canMove(dir.rotateRight()) && !isSpawn(Turn.loc.add(dir.rotateRight()))) Util.move(rc, dir.rotateRight());
+    }
+}
@@ -0,0 +1,58 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Bit layer of our traps that this robot has seen. A trap that was there last time we looked and is gone now was set off
+ * by an enemy, so it gets reported as an enemy sighting even if we never saw the enemy itself.
+ * Also decides where and what to build, so that traps don't pile up next to each other.
+ */
+public class TrapRegistry {
+    final static int DENSITY_RADIUS_SQUARED = 10;
+
+    // Bit y of traps[x] is set if we think (x, y) has one of our traps
+    static long[] traps = new long[GameConstants.MAP_MAX_WIDTH];
+
+    static void update(MapInfo[] infos, Communications comms) {
+        for (int i = infos.length; i --> 0; ) {
+            final MapLocation loc = infos[i].getMapLocation();
+            final boolean known = (traps[loc.x] >>> loc.y & 1) != 0;
+            if (infos[i].getTrapType() != TrapType.NONE) {
+                if (!known) traps[loc.x] |= 1L << loc.y;
+            } else if (known) {
+                traps[loc.x] &= ~(1L << loc.y);
+                comms.addEnemySighting(loc);
+            }
+        }
+    }
+
+    // Whether any known trap is on loc or next to it
+    static boolean nearTrap(MapLocation loc) {
+        final int y = loc.y - 1;
+        final long mask = y < 0 ? 3 : 7L << y;  // shifting by -1 would wrap around
+        return (loc.x > 0 && (traps[loc.x - 1] & mask) != 0) ||
+                (traps[loc.x] & mask) != 0 ||
+                (loc.x + 1 < GameConstants.MAP_MAX_WIDTH && (traps[loc.x + 1] & mask) != 0);
+    }
+
+    static TrapType typeFor(MapLocation loc, RobotInfo[] enemies) {
+        int density = 0;
+        for (int i = enemies.length; i --> 0; ) {
+            if (enemies[i].location.isWithinDistanceSquared(loc, DENSITY_RADIUS_SQUARED)) ++density;
+        }
+        return density >= Params.EXPLOSIVE_DENSITY ? TrapType.EXPLOSIVE : TrapType.STUN;
+    }
+
+    // Builds a trap on loc if there isn't one right next to it already
+    static boolean tryBuild(RobotController rc, MapLocation loc, RobotInfo[] enemies) throws GameActionException {
+        if (nearTrap(loc)) return false;
+        TrapType type = typeFor(loc, enemies);
+        if (!rc.canBuild(type, loc)) {
+            if (type == TrapType.STUN || !rc.canBuild(TrapType.STUN, loc)) return false;
+            type = TrapType.STUN;
+        }
+        rc.build(type, loc);
+        traps[loc.x] |= 1L << loc.y;
+        return true;
+    }
+}
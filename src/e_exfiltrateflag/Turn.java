@@ -0,0 +1,56 @@
+package e_exfiltrateflag;
+
+import battlecode.common.*;
+
+/**
+ * Snapshot of the robot's own state, so that helpers can read fields instead of paying for a RobotController call each
+ * time. init is called once, start at the top of every turn, moved after every move, and acted after anything that
+ * might have used our action cooldown.
+ */
+public class Turn {
+    static int id;
+    static Team team;
+    static Team opponent;
+    static int mapWidth;
+    static int mapHeight;
+
+    static int round;
+    static MapLocation loc;
+    static int health;
+    static boolean movementReady;
+    static boolean actionReady;
+    static int attackLevel;
+    static int buildLevel;
+    static int healLevel;
+
+    static void init(RobotController rc) {
+        id = rc.getID();
+        team = rc.getTeam();
+        opponent = team.opponent();
+        mapWidth = rc.getMapWidth();
+        mapHeight = rc.getMapHeight();
+    }
+
+    // Also called right after spawning, since none of this is meaningful before then
+    static void start(RobotController rc) {
+        round = rc.getRoundNum();
+        if (rc.isSpawned()) {
+            loc = rc.getLocation();
+            health = rc.getHealth();
+            movementReady = rc.isMovementReady();
+            actionReady = rc.isActionReady();
+            attackLevel = rc.getLevel(SkillType.ATTACK);
+            buildLevel = rc.getLevel(SkillType.BUILD);
+            healLevel = rc.getLevel(SkillType.HEAL);
+        }
+    }
+
+    static void moved(RobotController rc) {
+        loc = rc.getLocation();
+        movementReady = rc.isMovementReady();
+    }
+
+    static void acted(RobotController rc) {
+        actionReady = rc.isActionReady();
+    }
+}
@@ -2,47 +2,65 @@ package e_exfiltrateflag;
 
 import battlecode.common.*;
 
-import java.util.Random;
-
 public class Util {
-    static void moveRandom(RobotController rc, Random rng) throws GameActionException {
-        final Direction dir = Direction.values()[rng.nextInt(8)];
-        if (rc.canMove(dir)) rc.move(dir);
-        else if (rc.canMove(dir.rotateLeft())) rc.move(dir.rotateLeft());
-        else if (rc.canMove(dir.rotateRight())) rc.move(dir.rotateRight());
-        else if (rc.canMove(dir.rotateLeft().rotateLeft())) rc.move(dir.rotateLeft().rotateLeft());
-        else if (rc.canMove(dir.rotateRight().rotateRight())) rc.move(dir.rotateRight().rotateRight());
-        else if (rc.canMove(dir.opposite().rotateLeft())) rc.move(dir.opposite().rotateLeft());
-        else if (rc.canMove(dir.opposite().rotateRight())) rc.move(dir.opposite().rotateRight());
-        else if (rc.canMove(dir.opposite())) rc.move(dir.opposite());
+    static void move(RobotController rc, Direction dir) throws GameActionException {
+        rc.move(dir);
+        Turn.moved(rc);
+    }
+
+    static void moveRandom(RobotController rc) throws GameActionException {
+        final Direction dir = Direction.values()[Rng.nextInt(8)];
+        if (rc.canMove(dir)) move(rc, dir);
+        else if (rc.canMove(dir.rotateLeft())) move(rc, dir.rotateLeft());
+        else if (rc.canMove(dir.rotateRight())) move(rc, dir.rotateRight());
+        else if (rc.canMove(dir.rotateLeft().rotateLeft())) move(rc, dir.rotateLeft().rotateLeft());
+        else if (rc.canMove(dir.rotateRight().rotateRight())) move(rc, dir.rotateRight().rotateRight());
+        else if (rc.canMove(dir.opposite().rotateLeft())) move(rc, dir.opposite().rotateLeft());
+        else if (rc.canMove(dir.opposite().rotateRight())) move(rc, dir.opposite().rotateRight());
+        else if (rc.canMove(dir.opposite())) move(rc, dir.opposite());
     }
 
     static void tryMove(RobotController rc, Direction dir) throws GameActionException {
         if (dir == null || dir == Direction.CENTER) return;
-        if (rc.canMove(dir)) rc.move(dir);
-        else if (rc.canMove(dir.rotateLeft())) rc.move(dir.rotateLeft());
-        else if (rc.canMove(dir.rotateRight())) rc.move(dir.rotateRight());
-        else if (rc.canMove(dir.rotateLeft().rotateLeft())) rc.move(dir.rotateLeft().rotateLeft());
-        else if (rc.canMove(dir.rotateRight().rotateRight())) rc.move(dir.rotateRight().rotateRight());
+        if (rc.canMove(dir)) move(rc, dir);
+        else if (rc.canMove(dir.rotateLeft())) move(rc, dir.rotateLeft());
+        else if (rc.canMove(dir.rotateRight())) move(rc, dir.rotateRight());
+        else if (rc.canMove(dir.rotateLeft().rotateLeft())) move(rc, dir.rotateLeft().rotateLeft());
+        else if (rc.canMove(dir.rotateRight().rotateRight())) move(rc, dir.rotateRight().rotateRight());
     }
 
     static void tryFill(RobotController rc, Direction dir) throws GameActionException {
         if (dir == null || dir == Direction.CENTER) return;
-        if (rc.canFill(rc.getLocation().add(dir))) rc.fill(rc.getLocation().add(dir));
-        else if (rc.canFill(rc.getLocation().add(dir.rotateLeft()))) rc.fill(rc.getLocation().add(dir.rotateLeft()));
-        else if (rc.canFill(rc.getLocation().add(dir.rotateRight()))) rc.fill(rc.getLocation().add(dir.rotateRight()));
-        else if (rc.canFill(rc.getLocation().add(dir.rotateLeft().rotateLeft()))) rc.fill(rc.getLocation().add(dir.rotateLeft().rotateLeft()));
-        else if (rc.canFill(rc.getLocation().add(dir.rotateRight().rotateRight()))) rc.fill(rc.getLocation().add(dir.rotateRight().rotateRight()));
+        if (rc.canFill(Turn.loc.add(dir))) rc.fill(Turn.loc.add(dir));
+        else if (rc.canFill(Turn.loc.add(dir.rotateLeft()))) rc.fill(Turn.loc.add(dir.rotateLeft()));
+        else if (rc.canFill(Turn.loc.add(dir.rotateRight()))) rc.fill(Turn.loc.add(dir.rotateRight()));
+        else if (rc.canFill(Turn.loc.add(dir.rotateLeft().rotateLeft()))) rc.fill(Turn.loc.add(dir.rotateLeft().rotateLeft()));
+        else if (rc.canFill(Turn.loc.add(dir.rotateRight().rotateRight()))) rc.fill(Turn.loc.add(dir.rotateRight().rotateRight()));
     }
 
     static void tryMoveWithFill(RobotController rc, Direction dir) throws GameActionException {
         tryMove(rc, dir);
-        if (rc.isMovementReady() && rc.isActionReady()) {
+        if (Turn.movementReady && Turn.actionReady) {
             tryFill(rc, dir);
+            Turn.acted(rc);
             tryMove(rc, dir);
         }
     }
 
+    static boolean tryDropFlag(RobotController rc) throws GameActionException {
+        if (rc.canDropFlag(Turn.loc)) rc.dropFlag(Turn.loc);
+        else if (rc.canDropFlag(Turn.loc.add(Direction.NORTH))) rc.dropFlag(Turn.loc.add(Direction.NORTH));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.EAST))) rc.dropFlag(Turn.loc.add(Direction.EAST));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.SOUTH))) rc.dropFlag(Turn.loc.add(Direction.SOUTH));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.WEST))) rc.dropFlag(Turn.loc.add(Direction.WEST));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.NORTHEAST))) rc.dropFlag(Turn.loc.add(Direction.NORTHEAST));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.SOUTHEAST))) rc.dropFlag(Turn.loc.add(Direction.SOUTHEAST));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.SOUTHWEST))) rc.dropFlag(Turn.loc.add(Direction.SOUTHWEST));
+        else if (rc.canDropFlag(Turn.loc.add(Direction.NORTHWEST))) rc.dropFlag(Turn.loc.add(Direction.NORTHWEST));
+        else return false;
+        return true;
+    }
+
     static RobotInfo nearestRobot(MapLocation loc, RobotInfo[] robots) {
         int dist = 1_000_000;
         RobotInfo nearest = null;
@@ -93,15 +111,15 @@ public class Util {
 
     // CENTER if no movement required; null if impossible to reach after moving
     static Direction directionToReach(RobotController rc, MapLocation location, int radiusSquared) {
-        if (rc.getLocation().isWithinDistanceSquared(location, radiusSquared)) return Direction.CENTER;
-        if (rc.canMove(Direction.NORTH) && rc.getLocation().add(Direction.NORTH).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTH;
-        if (rc.canMove(Direction.WEST) && rc.getLocation().add(Direction.WEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.WEST;
-        if (rc.canMove(Direction.SOUTH) && rc.getLocation().add(Direction.SOUTH).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTH;
-        if (rc.canMove(Direction.EAST) && rc.getLocation().add(Direction.EAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.EAST;
-        if (rc.canMove(Direction.NORTHWEST) && rc.getLocation().add(Direction.NORTHWEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTHWEST;
-        if (rc.canMove(Direction.SOUTHWEST) && rc.getLocation().add(Direction.SOUTHWEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTHWEST;
-        if (rc.canMove(Direction.SOUTHEAST) && rc.getLocation().add(Direction.SOUTHEAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTHEAST;
-        if (rc.canMove(Direction.NORTHEAST) && rc.getLocation().add(Direction.NORTHEAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTHEAST;
+        if (Turn.loc.isWithinDistanceSquared(location, radiusSquared)) return Direction.CENTER;
+        if (rc.canMove(Direction.NORTH) && Turn.loc.add(Direction.NORTH).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTH;
+        if (rc.canMove(Direction.WEST) && Turn.loc.add(Direction.WEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.WEST;
+        if (rc.canMove(Direction.SOUTH) && Turn.loc.add(Direction.SOUTH).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTH;
+        if (rc.canMove(Direction.EAST) && Turn.loc.add(Direction.EAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.EAST;
+        if (rc.canMove(Direction.NORTHWEST) && Turn.loc.add(Direction.NORTHWEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTHWEST;
+        if (rc.canMove(Direction.SOUTHWEST) && Turn.loc.add(Direction.SOUTHWEST).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTHWEST;
+        if (rc.canMove(Direction.SOUTHEAST) && Turn.loc.add(Direction.SOUTHEAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.SOUTHEAST;
+        if (rc.canMove(Direction.NORTHEAST) && Turn.loc.add(Direction.NORTHEAST).isWithinDistanceSquared(location, radiusSquared)) return Direction.NORTHEAST;
         return null;
     }
 
@@ -110,11 +128,4 @@ public class Util {
                 rc.onTheMap(toMove) &&  // onTheMap isn't limited by vision
                 (!rc.canSenseLocation(toMove) || rc.sensePassability(toMove));  // assume passable if unknown
     }
-
-    static void debugBytecode(RobotController rc, String s) {
-        if (rc.getID() == 10469) System.out.println(s + " " + Clock.getBytecodeNum());
-    }
-    static void debug(RobotController rc, String s) {
-        if (rc.getID() == 10469) System.out.println(s);
-    }
 }
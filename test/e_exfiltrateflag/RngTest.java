@@ -0,0 +1,63 @@
+package e_exfiltrateflag;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class RngTest {
+
+	// A robot with ID 10469 sees exactly these values in game, since Rng only depends on its seed.
+	@Test
+	public void testSequenceMatchesGame() {
+		Rng.seed(10469);
+		assertEquals(1000643158, Rng.nextInt());
+		assertEquals(-1255159295, Rng.nextInt());
+		assertEquals(-1047115018, Rng.nextInt());
+
+		Rng.seed(10469);
+		int[] expected = {79, 0, 39, 73, 29, 81, 71, 91, 33, 88};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], Rng.nextInt(100));
+		}
+	}
+
+	@Test
+	public void testReseedRepeats() {
+		Rng.seed(12345);
+		int[] first = new int[50];
+		for (int i = 0; i < first.length; i++) first[i] = Rng.nextInt(101);
+		Rng.seed(12345);
+		for (int i = 0; i < first.length; i++) assertEquals(first[i], Rng.nextInt(101));
+	}
+
+	@Test
+	public void testZeroSeedDoesNotStick() {
+		Rng.seed(0);
+		assertNotEquals(0, Rng.state);
+		assertNotEquals(Rng.nextInt(), Rng.nextInt());
+	}
+
+	@Test
+	public void testBoundedIsInRangeAndUniform() {
+		Rng.seed(10469);
+		int[] counts = new int[7];
+		int draws = 70000;
+		for (int i = 0; i < draws; i++) {
+			int value = Rng.nextInt(7);
+			assertTrue(value >= 0 && value < 7);
+			counts[value]++;
+		}
+		for (int count : counts) {
+			assertEquals(draws / 7, count, draws / 7 / 20);
+		}
+	}
+
+	@Test
+	public void testLargeBound() {
+		Rng.seed(1);
+		int bound = (1 << 30) + 1;  // rejects almost half of all draws
+		for (int i = 0; i < 1000; i++) {
+			int value = Rng.nextInt(bound);
+			assertTrue(value >= 0 && value < bound);
+		}
+	}
+}
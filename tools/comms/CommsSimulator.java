@@ -0,0 +1,373 @@
+package comms;
+
+import battlecode.common.FlagInfo;
+import battlecode.common.GameConstants;
+import battlecode.common.MapInfo;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
+import battlecode.common.Team;
+import battlecode.common.TrapType;
+import maps.MapFile;
+import tune.Args;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs a bot package's Communications for a full team of ducks on a real map without the engine, to measure how fast
+ * map tiles and flag moves spread through the shared array and how full it gets. Ducks wander between random open
+ * tiles and don't block each other, enemies do the same from the other side after setup, and every flagMoves rounds a
+ * random flag is dropped somewhere nearby. Ducks act in ID order and see the writes of ducks before them in the same
+ * round, like in the engine. With probability drop a turn runs out of bytecode after a random step and finishes in
+ * the next round, with the state it had when it was cut off.
+ * Usage: CommsSimulator classLocation=... [package=e_exfiltrateflag] [map=Maze] [rounds=2000] [drop=0.05]
+ * [flagMoves=100] [enemies=10] [seed=0]
+ */
+public class CommsSimulator {
+    final static int DUCKS = GameConstants.ROBOT_CAPACITY;
+    final static int FIRST_ID = 10_000;
+    final static int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    final static int[] DY = {1, 1, 0, -1, -1, -1, 0, 1};
+    final static int FLAG_DROP_DISTANCE_SQUARED = 36;
+    final static int NOT_YET = -1, SUPERSEDED = -2;
+
+    // The parts of a turn, in the order RobotPlayer does them
+    final static int START = 0, READ = 1, SENSE_MAP = 2, SENSE_FLAGS = 3, SENSE_ENEMIES = 4, BROADCAST = 5, MOVE = 6, STEPS = 7;
+
+    final MapFile map;
+    final Random random;
+    final double drop;
+    final int[] shared = new int[GameConstants.SHARED_ARRAY_LENGTH];
+    int round = 0;
+
+    final List<Duck> ducks = new ArrayList<>();
+    final int[] enemyX, enemyY, enemyTargetX, enemyTargetY;
+
+    // Flags alternate between the teams like the spawn zones they start on, starting with ours
+    final int[] flagX, flagY;
+    final List<FlagMove> flagMoves = new ArrayList<>();
+    final FlagMove[] lastMove;
+
+    final int[] firstSeen, allKnown;
+    final List<Integer> pending = new ArrayList<>();
+    final int[] visionX, visionY;
+
+    long turns = 0, reads = 0, writes = 0, exceptions = 0;
+    long backlogged = 0, backlogTotal = 0, backlogReports = 0;
+    int used = 0, peakUsed = 0, maxUsedAtEnd = 0;
+    long usedAtEndTotal = 0;
+
+    static class FlagMove {
+        final int flag, round, x, y;
+        int seen = NOT_YET, known = NOT_YET;
+
+        FlagMove(int flag, int round, int x, int y) {
+            this.flag = flag;
+            this.round = round;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    CommsSimulator(MapFile map, int enemies, double drop, long seed) {
+        this.map = map;
+        this.random = new Random(seed);
+        this.drop = drop;
+        final int[][] spawns = map.spawnCenters();
+        flagX = spawns[0].clone();
+        flagY = spawns[1].clone();
+        lastMove = new FlagMove[flagX.length];
+        enemyX = new int[enemies];
+        enemyY = new int[enemies];
+        enemyTargetX = new int[enemies];
+        enemyTargetY = new int[enemies];
+        for (int i = enemies; i --> 0; ) {
+            enemyX[i] = enemyTargetX[i] = spawns[0][1 + 2 * (i % (spawns[0].length / 2))];
+            enemyY[i] = enemyTargetY[i] = spawns[1][1 + 2 * (i % (spawns[0].length / 2))];
+        }
+
+        firstSeen = new int[map.width * map.height];
+        allKnown = new int[map.width * map.height];
+        Arrays.fill(firstSeen, NOT_YET);
+        Arrays.fill(allKnown, NOT_YET);
+
+        final int r = (int) Math.sqrt(GameConstants.VISION_RADIUS_SQUARED);
+        final List<int[]> vision = new ArrayList<>();
+        for (int dx = -r; dx <= r; ++dx) {
+            for (int dy = -r; dy <= r; ++dy) {
+                if (dx * dx + dy * dy <= GameConstants.VISION_RADIUS_SQUARED) vision.add(new int[]{dx, dy});
+            }
+        }
+        visionX = vision.stream().mapToInt(v -> v[0]).toArray();
+        visionY = vision.stream().mapToInt(v -> v[1]).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Args options = new Args(args);
+        final String packageName = options.get("package", "e_exfiltrateflag");
+        final String mapName = options.get("map", "Maze");
+        final File mapFile = mapName.endsWith(".map24") ? new File(mapName) : new File("maps", mapName + ".map24");
+        final int rounds = options.getInt("rounds", GameConstants.GAME_MAX_NUMBER_OF_ROUNDS);
+        final int flagMoveInterval = options.getInt("flagMoves", 100);
+
+        final CommsSimulator sim = new CommsSimulator(MapFile.open(mapFile), options.getInt("enemies", 10),
+                options.getDouble("drop", 0.05), Long.parseLong(options.get("seed", "0")));
+        final String classLocation = options.require("classLocation");
+        final int[][] spawns = sim.map.spawnCenters();
+        for (int i = 0; i < DUCKS; ++i) {
+            final Duck duck = new Duck(FIRST_ID + i, classLocation, packageName, sim);
+            // Ducks start spread over our spawn zones, which are 3x3 squares around every other spawn center
+            final int zone = 2 * (i % (spawns[0].length / 2));
+            duck.x = duck.targetX = spawns[0][zone] + (i / 3) % 3 - 1;
+            duck.y = duck.targetY = spawns[1][zone] + (i / 9) % 3 - 1;
+            sim.ducks.add(duck);
+        }
+
+        while (sim.round < rounds) {
+            ++sim.round;
+            if (flagMoveInterval > 0 && sim.round > GameConstants.SETUP_ROUNDS && sim.round % flagMoveInterval == 0) {
+                sim.moveFlag();
+            }
+            for (Duck duck : sim.ducks) sim.turn(duck);
+            if (sim.round > GameConstants.SETUP_ROUNDS) sim.moveEnemies();
+            sim.endRound();
+        }
+        sim.report(packageName, mapFile.getName(), rounds);
+    }
+
+    int read(int index) {
+        ++reads;
+        return shared[index];
+    }
+
+    void write(int index, int value) {
+        ++writes;
+        if (shared[index] == 0 && value != 0) ++used;
+        if (shared[index] != 0 && value == 0) --used;
+        shared[index] = value;
+        peakUsed = Math.max(peakUsed, used);
+    }
+
+    boolean passable(int x, int y) {
+        return map.onMap(x, y) && !map.isWall(x, y) && !map.isWater(x, y) && !(map.isDam(x, y) && round <= GameConstants.SETUP_ROUNDS);
+    }
+
+    void turn(Duck duck) throws ReflectiveOperationException {
+        ++turns;
+        final int from = duck.resumeAt;
+        int to = STEPS;
+        if (from == 0 && random.nextDouble() < drop) to = 1 + random.nextInt(STEPS - 1);
+        duck.resumeAt = to == STEPS ? 0 : to;
+        for (int step = from; step < to; ++step) {
+            try {
+                step(duck, step);
+            } catch (InvocationTargetException e) {
+                // The engine would print this and carry on with the next turn
+                if (exceptions++ == 0) e.getCause().printStackTrace();
+                duck.resumeAt = 0;
+                return;
+            }
+        }
+    }
+
+    void step(Duck duck, int step) throws ReflectiveOperationException {
+        switch (step) {
+            case START:
+                if (duck.turnStart != null) duck.turnStart.invoke(null, duck.rc);
+                break;
+            case READ:
+                duck.readBroadcasts.invoke(duck.comms);
+                break;
+            case SENSE_MAP:
+                final List<MapInfo> infos = new ArrayList<>();
+                for (int v = visionX.length; v --> 0; ) {
+                    final int x = duck.x + visionX[v], y = duck.y + visionY[v];
+                    if (!map.onMap(x, y)) continue;
+                    if (firstSeen[x + y * map.width] == NOT_YET) {
+                        firstSeen[x + y * map.width] = round;
+                        pending.add(x + y * map.width);
+                    }
+                    final boolean dam = map.isDam(x, y) && round <= GameConstants.SETUP_ROUNDS;
+                    infos.add(new MapInfo(new MapLocation(x, y), passable(x, y), map.isWall(x, y), dam, 0, map.isWater(x, y),
+                            0, TrapType.NONE, Team.NEUTRAL));
+                }
+                duck.addMapInfo.invoke(duck.comms, (Object) infos.toArray(new MapInfo[0]));
+                break;
+            case SENSE_FLAGS:
+                final List<FlagInfo> flags = new ArrayList<>();
+                for (int f = 0; f < flagX.length; ++f) {
+                    if (!visible(duck, flagX[f], flagY[f])) continue;
+                    flags.add(new FlagInfo(new MapLocation(flagX[f], flagY[f]), f % 2 == 0 ? Team.A : Team.B, false, f + 1));
+                    if (lastMove[f] != null && lastMove[f].seen == NOT_YET) lastMove[f].seen = round;
+                }
+                duck.addFlags.invoke(duck.comms, (Object) flags.toArray(new FlagInfo[0]));
+                break;
+            case SENSE_ENEMIES:
+                final List<RobotInfo> enemies = new ArrayList<>();
+                for (int i = 0; round > GameConstants.SETUP_ROUNDS && i < enemyX.length; ++i) {
+                    if (!visible(duck, enemyX[i], enemyY[i])) continue;
+                    enemies.add(new RobotInfo(2 * FIRST_ID + i, Team.B, GameConstants.DEFAULT_HEALTH, new MapLocation(enemyX[i], enemyY[i]),
+                            false, 0, 0, 0));
+                }
+                duck.addEnemies.invoke(duck.comms, (Object) enemies.toArray(new RobotInfo[0]));
+                break;
+            case BROADCAST:
+                duck.broadcast.invoke(duck.comms);
+                final int backlog = duck.backlog();
+                if (backlog != -1) {
+                    ++backlogReports;
+                    if (backlog > 0) ++backlogged;
+                    backlogTotal += backlog;
+                }
+                break;
+            case MOVE:
+                final int[] next = wander(duck.x, duck.y, duck.targetX, duck.targetY);
+                duck.x = next[0];
+                duck.y = next[1];
+                duck.targetX = next[2];
+                duck.targetY = next[3];
+                break;
+        }
+    }
+
+    boolean visible(Duck duck, int x, int y) {
+        return (x - duck.x) * (x - duck.x) + (y - duck.y) * (y - duck.y) <= GameConstants.VISION_RADIUS_SQUARED;
+    }
+
+    // One step towards the target, or a new target if it's reached or the way is blocked. Returns {x, y, targetX, targetY}.
+    int[] wander(int x, int y, int targetX, int targetY) {
+        if (x != targetX || y != targetY) {
+            final int dx = Integer.signum(targetX - x), dy = Integer.signum(targetY - y);
+            int d = 0;
+            while (DX[d] != dx || DY[d] != dy) ++d;
+            // Straight there, or turned 45 degrees either way
+            for (int turn : new int[]{0, 1, 7}) {
+                final int nx = x + DX[(d + turn) % 8], ny = y + DY[(d + turn) % 8];
+                if (passable(nx, ny)) return new int[]{nx, ny, targetX, targetY};
+            }
+        }
+        do {
+            targetX = random.nextInt(map.width);
+            targetY = random.nextInt(map.height);
+        } while (!passable(targetX, targetY));
+        return new int[]{x, y, targetX, targetY};
+    }
+
+    void moveEnemies() {
+        for (int i = enemyX.length; i --> 0; ) {
+            final int[] next = wander(enemyX[i], enemyY[i], enemyTargetX[i], enemyTargetY[i]);
+            enemyX[i] = next[0];
+            enemyY[i] = next[1];
+            enemyTargetX[i] = next[2];
+            enemyTargetY[i] = next[3];
+        }
+    }
+
+    // Someone carries a random flag a few tiles and drops it. A move that hadn't spread yet no longer can.
+    void moveFlag() {
+        final int f = random.nextInt(flagX.length);
+        for (int tries = 100; tries --> 0; ) {
+            final int x = flagX[f] + random.nextInt(13) - 6, y = flagY[f] + random.nextInt(13) - 6;
+            final int dx = x - flagX[f], dy = y - flagY[f];
+            if ((dx != 0 || dy != 0) && dx * dx + dy * dy <= FLAG_DROP_DISTANCE_SQUARED && passable(x, y)) {
+                if (lastMove[f] != null && lastMove[f].known == NOT_YET) lastMove[f].known = SUPERSEDED;
+                flagX[f] = x;
+                flagY[f] = y;
+                lastMove[f] = new FlagMove(f, round, x, y);
+                flagMoves.add(lastMove[f]);
+                return;
+            }
+        }
+    }
+
+    void endRound() throws IllegalAccessException {
+        usedAtEndTotal += used;
+        maxUsedAtEnd = Math.max(maxUsedAtEnd, used);
+
+        for (int i = pending.size(); i --> 0; ) {
+            final int tile = pending.get(i);
+            if (knownByAll(tile % map.width, tile / map.width)) {
+                allKnown[tile] = round;
+                pending.set(i, pending.get(pending.size() - 1));
+                pending.remove(pending.size() - 1);
+            }
+        }
+
+        for (FlagMove move : lastMove) {
+            if (move == null || move.seen == NOT_YET || move.known != NOT_YET) continue;
+            final MapLocation loc = new MapLocation(move.x, move.y);
+            boolean all = true;
+            for (int i = ducks.size(); i --> 0 && all; ) all = ducks.get(i).knowsFlag(move.flag % 2 == 0 ? Team.A : Team.B, loc);
+            if (all) move.known = round;
+        }
+    }
+
+    private boolean knownByAll(int x, int y) {
+        for (int i = ducks.size(); i --> 0; ) {
+            if (ducks.get(i).map[x][y] == 0) return false;
+        }
+        return true;
+    }
+
+    void report(String packageName, String mapName, int rounds) {
+        final int tiles = map.width * map.height;
+        System.out.printf("%s on %s (%dx%d), %d ducks, %d rounds, %.0f%% of turns run out of bytecode%n",
+                packageName, mapName, map.width, map.height, DUCKS, rounds, 100 * drop);
+
+        final List<Integer> latency = new ArrayList<>();
+        for (int tile = tiles; tile --> 0; ) {
+            if (allKnown[tile] != NOT_YET) latency.add(allKnown[tile] - firstSeen[tile]);
+        }
+        System.out.println("Map tiles 50% / 90% / 100% seen by round " + milestones(firstSeen) +
+                ", known by every duck by round " + milestones(allKnown));
+        System.out.println("Map tile rounds from first seen to known by every duck: " + stats(latency) +
+                ", " + pending.size() + " tiles never spread");
+
+        final List<Integer> found = new ArrayList<>(), spread = new ArrayList<>();
+        int neverSpread = 0, superseded = 0;
+        for (FlagMove move : flagMoves) {
+            if (move.seen != NOT_YET) found.add(move.seen - move.round);
+            if (move.known >= 0) spread.add(move.known - move.seen);
+            else if (move.known == SUPERSEDED) ++superseded;
+            else if (move.seen != NOT_YET) ++neverSpread;
+        }
+        System.out.println("Flag moves: " + flagMoves.size() + ", rounds until seen: " + stats(found) +
+                ", then until known by every duck: " + stats(spread) + ", " + neverSpread + " never spread, " +
+                superseded + " moved again first");
+
+        System.out.printf("Shared array: %.1f of %d slots in use at the end of a round on average, %d at most, %d at most mid-round%n",
+                (double) usedAtEndTotal / rounds, GameConstants.SHARED_ARRAY_LENGTH, maxUsedAtEnd, peakUsed);
+        if (backlogReports > 0) {
+            System.out.printf("%.1f%% of broadcasts ended with messages still queued, %.1f queued on average%n",
+                    100.0 * backlogged / backlogReports, (double) backlogTotal / backlogReports);
+        }
+        System.out.printf("Per turn: %.1f reads, %.1f writes; %d exceptions%n", (double) reads / turns, (double) writes / turns, exceptions);
+    }
+
+    // Rounds by which 50%, 90% and all of the map reached the state recorded in rounds, "-" for never
+    private String milestones(int[] rounds) {
+        final List<Integer> reached = new ArrayList<>();
+        for (int r : rounds) if (r != NOT_YET) reached.add(r);
+        Collections.sort(reached);
+        final StringBuilder out = new StringBuilder();
+        for (double fraction : new double[]{0.5, 0.9, 1}) {
+            final int needed = (int) Math.ceil(fraction * rounds.length);
+            if (out.length() > 0) out.append(" / ");
+            out.append(reached.size() >= needed ? Integer.toString(reached.get(needed - 1)) : "-");
+        }
+        return out.toString();
+    }
+
+    private static String stats(List<Integer> values) {
+        if (values.isEmpty()) return "none";
+        Collections.sort(values);
+        final double mean = values.stream().mapToInt(Integer::intValue).average().orElse(0);
+        return String.format("mean %.1f, median %d, p90 %d, max %d", mean, values.get(values.size() / 2),
+                values.get((int) (0.9 * (values.size() - 1))), values.get(values.size() - 1));
+    }
+}
@@ -0,0 +1,139 @@
+package comms;
+
+import battlecode.common.FlagInfo;
+import battlecode.common.GameConstants;
+import battlecode.common.MapInfo;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotInfo;
+import battlecode.common.Team;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+
+/**
+ * One robot of the simulated team: its own copy of the bot package, a Communications instance, and a RobotController
+ * proxy that answers from the simulator. The proxy knows about the shared array and the duck's own state, and anything
+ * else Communications asks for gets 0, false or null.
+ */
+class Duck implements InvocationHandler {
+    final int id;
+    private final CommsSimulator world;
+    final RobotController rc;
+    final Object comms;
+    final Method readBroadcasts, addMapInfo, addFlags, addEnemies, broadcast;
+    final Method turnStart;  // null if the package has no Turn class
+    final int[][] map;
+    private final Field allyFlags, enemyFlags;
+    private final Field nMap, nEnemyLocation;  // broadcast queue sizes, null if the package doesn't have them
+
+    int x, y;
+    int targetX, targetY;
+    int resumeAt = 0;  // step to continue from after running out of bytecode, 0 if the last turn finished
+
+    Duck(int id, String classLocation, String packageName, CommsSimulator world) throws ReflectiveOperationException, MalformedURLException {
+        this.id = id;
+        this.world = world;
+        this.rc = (RobotController) Proxy.newProxyInstance(RobotController.class.getClassLoader(), new Class<?>[]{RobotController.class}, this);
+        final ClassLoader loader = new PackageLoader(classLocation, packageName, Duck.class.getClassLoader());
+
+        final Class<?> communications = loader.loadClass(packageName + ".Communications");
+        comms = communications.getConstructor(RobotController.class).newInstance(rc);
+        readBroadcasts = communications.getMethod("readBroadcasts");
+        addMapInfo = communications.getMethod("addMapInfo", MapInfo[].class);
+        addFlags = communications.getMethod("addFlags", FlagInfo[].class);
+        addEnemies = communications.getMethod("addEnemies", RobotInfo[].class);
+        broadcast = communications.getMethod("broadcast");
+        map = (int[][]) field(communications, "map").get(null);
+        allyFlags = field(communications, "allyFlags");
+        enemyFlags = field(communications, "enemyFlags");
+        nMap = field(communications, "nMap");
+        nEnemyLocation = field(communications, "nEnemyLocation");
+
+        Method start = null;
+        try {
+            final Class<?> turn = loader.loadClass(packageName + ".Turn");
+            final Method init = turn.getDeclaredMethod("init", RobotController.class);
+            init.setAccessible(true);
+            init.invoke(null, rc);
+            start = turn.getDeclaredMethod("start", RobotController.class);
+            start.setAccessible(true);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            // Older packages read everything from rc directly
+        }
+        turnStart = start;
+    }
+
+    private static Field field(Class<?> c, String name) {
+        try {
+            final Field field = c.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    boolean knowsFlag(Team team, MapLocation loc) throws IllegalAccessException {
+        final Field field = team == Team.A ? allyFlags : enemyFlags;
+        if (field == null) return false;
+        for (MapLocation known : (MapLocation[]) field.get(null)) {
+            if (loc.equals(known)) return true;
+        }
+        return false;
+    }
+
+    // How many broadcasts are still queued, or -1 if the package doesn't say
+    int backlog() throws IllegalAccessException {
+        if (nMap == null && nEnemyLocation == null) return -1;
+        return (nMap == null ? 0 : nMap.getInt(null)) + (nEnemyLocation == null ? 0 : nEnemyLocation.getInt(null));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "readSharedArray":
+                return world.read((Integer) args[0]);
+            case "writeSharedArray":
+                world.write((Integer) args[0], (Integer) args[1]);
+                return null;
+            case "canWriteSharedArray":
+                return (Integer) args[0] >= 0 && (Integer) args[0] < GameConstants.SHARED_ARRAY_LENGTH &&
+                        (Integer) args[1] >= 0 && (Integer) args[1] <= GameConstants.MAX_SHARED_ARRAY_VALUE;
+            case "getRoundNum":
+                return world.round;
+            case "getID":
+                return id;
+            case "getTeam":
+                return Team.A;
+            case "getLocation":
+                return new MapLocation(x, y);
+            case "getMapWidth":
+                return world.map.width;
+            case "getMapHeight":
+                return world.map.height;
+            case "getHealth":
+                return GameConstants.DEFAULT_HEALTH;
+            case "isSpawned":
+            case "isMovementReady":
+            case "isActionReady":
+                return true;
+            case "hashCode":
+                return id;
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Duck " + id;
+        }
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0f;
+        return null;
+    }
+}
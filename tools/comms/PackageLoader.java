@@ -0,0 +1,37 @@
+package comms;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Loads one bot package itself instead of asking its parent first, so every duck gets its own copy of the package's
+ * static fields. Everything else, including battlecode.common, is shared through the parent.
+ */
+class PackageLoader extends URLClassLoader {
+    private final String prefix;
+
+    PackageLoader(String classLocation, String packageName, ClassLoader parent) throws MalformedURLException {
+        super(urls(classLocation), parent);
+        this.prefix = packageName + ".";
+    }
+
+    private static URL[] urls(String classLocation) throws MalformedURLException {
+        final String[] paths = classLocation.split(File.pathSeparator);
+        final URL[] urls = new URL[paths.length];
+        for (int i = paths.length; i --> 0; ) urls[i] = new File(paths[i]).toURI().toURL();
+        return urls;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith(prefix)) return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) c = findClass(name);
+            if (resolve) resolveClass(c);
+            return c;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package maps;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Summary numbers for a map, to group maps by type and explain why a bot does better on some than others.
+ * Dams are treated as open, since they're gone after setup.
+ */
+public class MapFeatures {
+    final static int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};  // ring order, so consecutive entries are adjacent tiles
+    final static int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+    final static int UNREACHABLE = -1;
+
+    public final String name;
+    public final int width, height;
+    public final String symmetry;     // detected from the tiles, "none" if no symmetry fits
+    public final double openRatio;    // land that isn't a wall or water
+    public final double wallRatio, waterRatio;
+    public final int dams;
+    public final int chokepoints;     // open tiles whose neighbors split into separate groups without them
+    public final int landPath;        // fewest moves from a team A spawn to a team B spawn without filling water
+    public final int waterPath;       // same, but water counts as open
+    public final int waterCrossings;  // fewest water tiles on any path between the spawns
+    public final int crumbPiles, crumbTotal;
+
+    public MapFeatures(MapFile map) {
+        name = map.name;
+        width = map.width;
+        height = map.height;
+        symmetry = detectSymmetry(map);
+
+        int open = 0, walls = 0, water = 0, damCount = 0, chokes = 0;
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                if (map.isWall(x, y)) ++walls;
+                else if (map.isWater(x, y)) ++water;
+                else ++open;
+                if (map.isDam(x, y)) ++damCount;
+                if (isOpen(map, x, y) && isChokepoint(map, x, y)) ++chokes;
+            }
+        }
+        final double tiles = width * height;
+        openRatio = open / tiles;
+        wallRatio = walls / tiles;
+        waterRatio = water / tiles;
+        dams = damCount;
+        chokepoints = chokes;
+
+        final int[][] spawns = map.spawnCenters();
+        landPath = shortestPath(map, spawns, false);
+        waterPath = shortestPath(map, spawns, true);
+        waterCrossings = fewestWaterTiles(map, spawns);
+
+        final int[][] crumbs = map.crumbs();
+        crumbPiles = crumbs[2].length;
+        crumbTotal = Arrays.stream(crumbs[2]).sum();
+    }
+
+    static boolean isOpen(MapFile map, int x, int y) {
+        return map.onMap(x, y) && !map.isWall(x, y) && !map.isWater(x, y);
+    }
+
+    // Going around the 8 neighbors, more than one separate run of open tiles means this tile joins them
+    static boolean isChokepoint(MapFile map, int x, int y) {
+        int runs = 0;
+        boolean any = false;
+        for (int d = 0; d < 8; ++d) {
+            final boolean here = isOpen(map, x + DX[d], y + DY[d]);
+            final boolean previous = isOpen(map, x + DX[(d + 7) % 8], y + DY[(d + 7) % 8]);
+            if (here && !previous) ++runs;
+            any |= here;
+        }
+        return any && runs >= 2;
+    }
+
+    static String detectSymmetry(MapFile map) {
+        final String[] names = {"rotational", "horizontal", "vertical"};
+        for (int s = 0; s < 3; ++s) {
+            boolean fits = true;
+            for (int x = 0; x < map.width && fits; ++x) {
+                for (int y = 0; y < map.height && fits; ++y) {
+                    // Horizontal symmetry mirrors across a horizontal line, so y flips, and vertical symmetry flips x
+                    final int mx = s == 1 ? x : map.width - 1 - x;
+                    final int my = s == 2 ? y : map.height - 1 - y;
+                    fits = map.isWall(x, y) == map.isWall(mx, my) && map.isWater(x, y) == map.isWater(mx, my) &&
+                            map.isDam(x, y) == map.isDam(mx, my);
+                }
+            }
+            if (fits) return names[s];
+        }
+        return "none";
+    }
+
+    // BFS with 8-directional moves from every team A spawn center to the nearest team B one
+    static int shortestPath(MapFile map, int[][] spawns, boolean throughWater) {
+        final int[] dist = new int[map.width * map.height];
+        Arrays.fill(dist, UNREACHABLE);
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < spawns[0].length; i += 2) {
+            dist[spawns[0][i] + spawns[1][i] * map.width] = 0;
+            queue.add(spawns[0][i] + spawns[1][i] * map.width);
+        }
+        while (!queue.isEmpty()) {
+            final int tile = queue.poll();
+            final int x = tile % map.width, y = tile / map.width;
+            for (int i = 1; i < spawns[0].length; i += 2) {
+                if (spawns[0][i] == x && spawns[1][i] == y) return dist[tile];
+            }
+            for (int d = 0; d < 8; ++d) {
+                final int nx = x + DX[d], ny = y + DY[d];
+                if (!map.onMap(nx, ny) || map.isWall(nx, ny) || (!throughWater && map.isWater(nx, ny))) continue;
+                if (dist[nx + ny * map.width] != UNREACHABLE) continue;
+                dist[nx + ny * map.width] = dist[tile] + 1;
+                queue.add(nx + ny * map.width);
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    // 0-1 BFS where stepping onto water costs 1 and land costs nothing
+    static int fewestWaterTiles(MapFile map, int[][] spawns) {
+        final int[] cost = new int[map.width * map.height];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        final ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int i = 0; i < spawns[0].length; i += 2) {
+            cost[spawns[0][i] + spawns[1][i] * map.width] = 0;
+            deque.add(spawns[0][i] + spawns[1][i] * map.width);
+        }
+        while (!deque.isEmpty()) {
+            final int tile = deque.pollFirst();
+            final int x = tile % map.width, y = tile / map.width;
+            for (int d = 0; d < 8; ++d) {
+                final int nx = x + DX[d], ny = y + DY[d];
+                if (!map.onMap(nx, ny) || map.isWall(nx, ny)) continue;
+                final int step = map.isWater(nx, ny) ? 1 : 0;
+                if (cost[tile] + step < cost[nx + ny * map.width]) {
+                    cost[nx + ny * map.width] = cost[tile] + step;
+                    if (step == 0) deque.addFirst(nx + ny * map.width);
+                    else deque.addLast(nx + ny * map.width);
+                }
+            }
+        }
+        int best = Integer.MAX_VALUE;
+        for (int i = 1; i < spawns[0].length; i += 2) best = Math.min(best, cost[spawns[0][i] + spawns[1][i] * map.width]);
+        return best == Integer.MAX_VALUE ? UNREACHABLE : best;
+    }
+}
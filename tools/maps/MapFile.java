@@ -0,0 +1,135 @@
+package maps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a .map24 file, which is a flatbuffer GameMap: name, size, symmetry, bodies, random seed, then one byte per tile
+ * for walls, water and dams (index x + y * width), spawn zone centers and crumb piles. Files are memory-mapped and the
+ * tile layers are read straight from the buffer, so nothing is copied or decoded that isn't asked for.
+ */
+public class MapFile {
+    // Field order of the GameMap table in the battlecode24 schema
+    final static int NAME = 0, SIZE = 1, SYMMETRY = 2, BODIES = 3, RANDOM_SEED = 4, WALLS = 5, WATER = 6, DAMS = 7,
+            SPAWN_LOCATIONS = 8, RESOURCE_PILES = 9, RESOURCE_PILE_AMOUNTS = 10;
+
+    // Values of the schema's symmetry enum
+    final static String[] SYMMETRIES = {"rotational", "horizontal", "vertical"};
+
+    private final ByteBuffer buffer;
+    private final int root;
+    public final String name;
+    public final int width, height;
+    private final int walls, water, dams;
+
+    public static MapFile open(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"); FileChannel channel = in.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new MapFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public MapFile(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.root = this.buffer.getInt(0);
+        final int nameAt = indirect(field(NAME));
+        this.name = new String(bytes(nameAt + 4, this.buffer.getInt(nameAt)), StandardCharsets.UTF_8);
+        final int size = field(SIZE);
+        this.width = this.buffer.getInt(size);
+        this.height = this.buffer.getInt(size + 4);
+        this.walls = vectorStart(WALLS);
+        this.water = vectorStart(WATER);
+        this.dams = vectorStart(DAMS);
+        if (width <= 0 || height <= 0 || walls == -1 || water == -1 || dams == -1) {
+            throw new IllegalArgumentException("Not a .map24 file: " + name);
+        }
+    }
+
+    // Absolute position of a field of the root table, or -1 if it isn't set
+    private int field(int index) {
+        final int vtable = root - buffer.getInt(root);
+        if (4 + 2 * index >= buffer.getShort(vtable)) return -1;
+        final int offset = buffer.getShort(vtable + 4 + 2 * index) & 0xffff;
+        return offset == 0 ? -1 : root + offset;
+    }
+
+    private int indirect(int at) {
+        return at + buffer.getInt(at);
+    }
+
+    // Position of the first element of a vector field, or -1 if it isn't set
+    private int vectorStart(int index) {
+        final int at = field(index);
+        return at == -1 ? -1 : indirect(at) + 4;
+    }
+
+    private byte[] bytes(int at, int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) bytes[i] = buffer.get(at + i);
+        return bytes;
+    }
+
+    public String schemaSymmetry() {
+        final int at = field(SYMMETRY);
+        return SYMMETRIES[at == -1 ? 0 : buffer.getInt(at)];
+    }
+
+    public int randomSeed() {
+        final int at = field(RANDOM_SEED);
+        return at == -1 ? 0 : buffer.getInt(at);
+    }
+
+    public boolean onMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public boolean isWall(int x, int y) {
+        return buffer.get(walls + x + y * width) != 0;
+    }
+
+    public boolean isWater(int x, int y) {
+        return buffer.get(water + x + y * width) != 0;
+    }
+
+    public boolean isDam(int x, int y) {
+        return buffer.get(dams + x + y * width) != 0;
+    }
+
+    // {xs, ys} of a VecTable field
+    private int[][] points(int index) {
+        final int at = field(index);
+        if (at == -1) return new int[][]{new int[0], new int[0]};
+        final int table = indirect(at);
+        final int vtable = table - buffer.getInt(table);
+        final int[][] points = new int[2][];
+        for (int f = 0; f < 2; ++f) {
+            final int vector = indirect(table + (buffer.getShort(vtable + 4 + 2 * f) & 0xffff));
+            points[f] = new int[buffer.getInt(vector)];
+            for (int i = 0; i < points[f].length; ++i) points[f][i] = buffer.getInt(vector + 4 + 4 * i);
+        }
+        return points;
+    }
+
+    /**
+     * Spawn zone centers as {xs, ys}. They alternate between the teams, starting with team A.
+     */
+    public int[][] spawnCenters() {
+        return points(SPAWN_LOCATIONS);
+    }
+
+    /**
+     * Crumb piles as {xs, ys, amounts}.
+     */
+    public int[][] crumbs() {
+        final int[][] piles = points(RESOURCE_PILES);
+        final int[] amounts = new int[piles[0].length];
+        final int start = vectorStart(RESOURCE_PILE_AMOUNTS);
+        for (int i = 0; start != -1 && i < amounts.length; ++i) amounts[i] = buffer.getInt(start + 4 * i);
+        return new int[][]{piles[0], piles[1], amounts};
+    }
+}
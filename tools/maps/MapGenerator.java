@@ -0,0 +1,332 @@
+package maps;
+
+import battlecode.common.GameConstants;
+import tune.Args;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates .map24 files for stress tests: 60x60 mazes, water moats, dense crumb fields and so on. Team A's half is
+ * generated and mirrored onto team B's, a dam line goes between the halves, and walls are carved away wherever a spawn
+ * zone couldn't otherwise reach the others. The same arguments always give the same map.
+ * Usage: MapGenerator [name=...] [dir=maps] [width=60] [height=width] [symmetry=rotational|horizontal|vertical]
+ * [walls=0.2] [maze=false] [water=0.1] [moats=false] [separation=20] [crumbs=40] [crumbAmount=50] [seed=0]
+ * [overwrite=false]
+ * With maze=true the walls are a maze with corridors 2 tiles wide, and walls= is ignored. The default name has every
+ * option in it, and an existing map is only replaced with overwrite=true.
+ */
+public class MapGenerator {
+    final static int[] DX = MapFeatures.DX, DY = MapFeatures.DY;
+    final static int ROTATIONAL = 0, HORIZONTAL = 1, VERTICAL = 2;
+    final static int ZONES = 3;  // per team
+    final static int BLOB_LENGTH = 12;  // tiles per random walk when scattering walls and water
+    final static int PLACEMENT_TRIES = 10_000;
+    final static int MAZE_CELL = 3;  // 2 tiles of corridor and 1 of wall
+
+    final int width, height, symmetry;
+    final Random random;
+    final boolean[] wall, water, dam, zone;
+    final int[] crumbs;
+    final int[] spawnX = new int[2 * ZONES], spawnY = new int[2 * ZONES];
+
+    MapGenerator(int width, int height, int symmetry, long seed) {
+        this.width = width;
+        this.height = height;
+        this.symmetry = symmetry;
+        this.random = new Random(seed);
+        wall = new boolean[width * height];
+        water = new boolean[width * height];
+        dam = new boolean[width * height];
+        zone = new boolean[width * height];
+        crumbs = new int[width * height];
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Args options = new Args(args);
+        final int width = options.getInt("width", GameConstants.MAP_MAX_WIDTH);
+        final int height = options.getInt("height", width);
+        if (width < GameConstants.MAP_MIN_WIDTH || width > GameConstants.MAP_MAX_WIDTH ||
+                height < GameConstants.MAP_MIN_HEIGHT || height > GameConstants.MAP_MAX_HEIGHT) {
+            throw new IllegalArgumentException("Maps are " + GameConstants.MAP_MIN_WIDTH + " to " + GameConstants.MAP_MAX_WIDTH + " wide and " +
+                    GameConstants.MAP_MIN_HEIGHT + " to " + GameConstants.MAP_MAX_HEIGHT + " high");
+        }
+        final String symmetryName = options.get("symmetry", "rotational");
+        final int symmetry = Arrays.asList(MapFile.SYMMETRIES).indexOf(symmetryName);
+        if (symmetry == -1) throw new IllegalArgumentException("Unknown symmetry " + symmetryName);
+        final long seed = Long.parseLong(options.get("seed", "0"));
+        final boolean maze = Boolean.parseBoolean(options.get("maze", "false"));
+        final double walls = options.getDouble("walls", 0.2);
+        final double water = options.getDouble("water", 0.1);
+        final boolean moats = Boolean.parseBoolean(options.get("moats", "false"));
+        final double separation = options.getDouble("separation", 20);
+        final int crumbCount = options.getInt("crumbs", 40);
+        final int crumbAmount = options.getInt("crumbAmount", 50);
+        // Ratios are written as percentages since map names can't have dots
+        final String name = options.get("name", "stress_" + width + "x" + height + "_" + symmetryName +
+                (maze ? "_maze" : "_walls" + Math.round(walls * 100)) + "_water" + Math.round(water * 100) + (moats ? "_moats" : "") +
+                "_sep" + Math.round(separation) + "_crumbs" + crumbCount + "x" + crumbAmount + "_seed" + seed);
+        final File file = new File(options.get("dir", "maps"), name + ".map24");
+        if (file.exists() && !Boolean.parseBoolean(options.get("overwrite", "false"))) {
+            throw new IllegalArgumentException(file + " already exists. Pass overwrite=true to replace it.");
+        }
+
+        final MapGenerator generator = new MapGenerator(width, height, symmetry, seed);
+        if (maze) generator.maze();
+        else generator.scatter(generator.wall, walls);
+        generator.scatter(generator.water, water);
+        generator.placeSpawns(separation, moats);
+        generator.mirror();
+        generator.connect();
+        generator.divide();
+        generator.scatterCrumbs(crumbCount, crumbAmount);
+
+        generator.write(file, name, (int) seed);
+        final String header = MapIndex.HEADER.substring(MapIndex.HEADER.indexOf('\t') + 1);
+        final String row = MapIndex.row("", MapFile.open(file), file.getParentFile().getName());
+        System.out.println(header);
+        System.out.println(row.substring(row.indexOf('\t') + 1));
+        System.out.println("Wrote " + file);
+    }
+
+    int mirror(int tile) {
+        final int x = tile % width, y = tile / width;
+        final int mx = symmetry == HORIZONTAL ? x : width - 1 - x;
+        final int my = symmetry == VERTICAL ? y : height - 1 - y;
+        return mx + my * width;
+    }
+
+    // 0 for team A's half, 1 for team B's, -1 for tiles that mirror onto themselves. Rotational maps are split into
+    // left and right halves, with the middle column (if any) split into top and bottom.
+    int side(int tile) {
+        final int mirrored = mirror(tile);
+        if (mirrored == tile) return -1;
+        final int x = tile % width, y = tile / width, mx = mirrored % width, my = mirrored / width;
+        if (symmetry == HORIZONTAL || x == mx) return y < my ? 0 : 1;
+        return x < mx ? 0 : 1;
+    }
+
+    boolean onMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // Random walks that set tiles of layer until ratio of the map is covered. Tiles already used by another layer
+    // are skipped, so walls and water don't overlap.
+    void scatter(boolean[] layer, double ratio) {
+        final int target = (int) (ratio * width * height);
+        int count = 0;
+        for (int tile = layer.length; tile --> 0; ) if (layer[tile]) ++count;
+        for (int walks = width * height; count < target && walks --> 0; ) {
+            int x = random.nextInt(width), y = random.nextInt(height);
+            for (int step = BLOB_LENGTH; step --> 0 && count < target; ) {
+                final int tile = x + y * width;
+                if (!wall[tile] && !water[tile]) {
+                    layer[tile] = true;
+                    ++count;
+                }
+                final int d = 2 * random.nextInt(4);
+                if (onMap(x + DX[d], y + DY[d])) {
+                    x += DX[d];
+                    y += DY[d];
+                }
+            }
+        }
+    }
+
+    // Depth-first maze over MAZE_CELL x MAZE_CELL cells. Leftover rows and columns at the edges stay walls.
+    void maze() {
+        Arrays.fill(wall, true);
+        final int cellsX = (width + 1) / MAZE_CELL, cellsY = (height + 1) / MAZE_CELL;
+        final boolean[] visited = new boolean[cellsX * cellsY];
+        final ArrayDeque<Integer> stack = new ArrayDeque<>();
+        final int start = random.nextInt(cellsX * cellsY);
+        visited[start] = true;
+        openCell(start % cellsX, start / cellsX, 0, 0);
+        stack.push(start);
+        final int[] options = new int[4];
+        while (!stack.isEmpty()) {
+            final int cell = stack.peek();
+            final int cx = cell % cellsX, cy = cell / cellsX;
+            int count = 0;
+            for (int d = 0; d < 8; d += 2) {
+                final int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx >= 0 && ny >= 0 && nx < cellsX && ny < cellsY && !visited[nx + ny * cellsX]) options[count++] = d;
+            }
+            if (count == 0) {
+                stack.pop();
+                continue;
+            }
+            final int d = options[random.nextInt(count)];
+            final int next = cx + DX[d] + (cy + DY[d]) * cellsX;
+            visited[next] = true;
+            // Opening the new cell stretched back towards the old one also opens the wall between them
+            openCell(cx + DX[d], cy + DY[d], -DX[d], -DY[d]);
+            stack.push(next);
+        }
+    }
+
+    private void openCell(int cx, int cy, int towardX, int towardY) {
+        for (int x = MAZE_CELL * cx + Math.min(towardX, 0); x <= MAZE_CELL * cx + MAZE_CELL - 2 + Math.max(towardX, 0); ++x) {
+            for (int y = MAZE_CELL * cy + Math.min(towardY, 0); y <= MAZE_CELL * cy + MAZE_CELL - 2 + Math.max(towardY, 0); ++y) {
+                if (onMap(x, y)) wall[x + y * width] = false;
+            }
+        }
+    }
+
+    /**
+     * Puts team A's spawn zones in its half, clear of walls and water and at least separation tiles from every team B
+     * zone. Zones are also kept 2 tiles from the other half so that the dam line never runs through one.
+     * With moats, each zone gets a ring of water 2 tiles thick a little way out.
+     */
+    void placeSpawns(double separation, boolean moats) {
+        for (int z = 0, tries = PLACEMENT_TRIES; z < ZONES; ) {
+            if (tries-- == 0) {
+                throw new IllegalArgumentException("Couldn't fit " + ZONES + " spawn zones per team " + separation + " tiles apart, try a smaller separation");
+            }
+            final int x = 1 + random.nextInt(width - 2), y = 1 + random.nextInt(height - 2);
+            if (!fitsZone(x, y, separation, z)) continue;
+            spawnX[2 * z] = x;
+            spawnY[2 * z] = y;
+            ++z;
+        }
+        for (int z = 0; z < ZONES && moats; ++z) {
+            for (int x = spawnX[2 * z] - 4; x <= spawnX[2 * z] + 4; ++x) {
+                for (int y = spawnY[2 * z] - 4; y <= spawnY[2 * z] + 4; ++y) {
+                    if (!onMap(x, y) || side(x + y * width) != 0) continue;
+                    if (Math.max(Math.abs(x - spawnX[2 * z]), Math.abs(y - spawnY[2 * z])) >= 3) {
+                        wall[x + y * width] = false;
+                        water[x + y * width] = true;
+                    }
+                }
+            }
+        }
+        // Done after the moats so that one zone's moat can't run over another zone
+        for (int z = 0; z < ZONES; ++z) {
+            for (int x = spawnX[2 * z] - 2; x <= spawnX[2 * z] + 2; ++x) {
+                for (int y = spawnY[2 * z] - 2; y <= spawnY[2 * z] + 2; ++y) {
+                    if (!onMap(x, y)) continue;
+                    wall[x + y * width] = false;
+                    if (Math.abs(x - spawnX[2 * z]) <= 1 && Math.abs(y - spawnY[2 * z]) <= 1) {
+                        water[x + y * width] = false;
+                        zone[x + y * width] = true;
+                    }
+                }
+            }
+        }
+        for (int z = 0; z < ZONES; ++z) {
+            final int mirrored = mirror(spawnX[2 * z] + spawnY[2 * z] * width);
+            spawnX[2 * z + 1] = mirrored % width;
+            spawnY[2 * z + 1] = mirrored / width;
+        }
+    }
+
+    private boolean fitsZone(int x, int y, double separation, int placed) {
+        for (int dx = -2; dx <= 2; ++dx) {
+            for (int dy = -2; dy <= 2; ++dy) {
+                if (onMap(x + dx, y + dy) && side(x + dx + (y + dy) * width) != 0) return false;
+            }
+        }
+        final int mirrored = mirror(x + y * width);
+        if (distanceSquared(x, y, mirrored % width, mirrored / width) < separation * separation) return false;
+        for (int z = 0; z < placed; ++z) {
+            if (distanceSquared(x, y, spawnX[2 * z], spawnY[2 * z]) < GameConstants.MIN_FLAG_SPACING_SQUARED) return false;
+            final int other = mirror(spawnX[2 * z] + spawnY[2 * z] * width);
+            if (distanceSquared(x, y, other % width, other / width) < separation * separation) return false;
+        }
+        return true;
+    }
+
+    private static int distanceSquared(int x0, int y0, int x1, int y1) {
+        return (x0 - x1) * (x0 - x1) + (y0 - y1) * (y0 - y1);
+    }
+
+    // Copies team A's half onto team B's
+    void mirror() {
+        for (int tile = width * height; tile --> 0; ) {
+            if (side(tile) != 1) continue;
+            final int from = mirror(tile);
+            wall[tile] = wall[from];
+            water[tile] = water[from];
+            zone[tile] = zone[from];
+        }
+    }
+
+    /**
+     * Makes every spawn zone reachable from the first one, counting water as passable since it can be filled.
+     * Unreachable zones get a straight tunnel towards the first zone, which is carved on both halves to keep the map
+     * symmetric, until the tunnel runs into something reachable.
+     */
+    void connect() {
+        for (boolean[] reached = reachable(); ; reached = reachable()) {
+            int z = 2 * ZONES;
+            while (z --> 0 && reached[spawnX[z] + spawnY[z] * width]) ;
+            if (z == -1) return;
+            int x = spawnX[z], y = spawnY[z];
+            while (!reached[x + y * width]) {
+                wall[x + y * width] = false;
+                wall[mirror(x + y * width)] = false;
+                x += Integer.signum(spawnX[0] - x);
+                y += Integer.signum(spawnY[0] - y);
+            }
+        }
+    }
+
+    private boolean[] reachable() {
+        final boolean[] reached = new boolean[width * height];
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reached[spawnX[0] + spawnY[0] * width] = true;
+        queue.add(spawnX[0] + spawnY[0] * width);
+        while (!queue.isEmpty()) {
+            final int tile = queue.poll();
+            for (int d = 0; d < 8; ++d) {
+                final int nx = tile % width + DX[d], ny = tile / width + DY[d];
+                if (!onMap(nx, ny) || wall[nx + ny * width] || reached[nx + ny * width]) continue;
+                reached[nx + ny * width] = true;
+                queue.add(nx + ny * width);
+            }
+        }
+        return reached;
+    }
+
+    // Dams go on every open tile that touches the other half or is on the line between halves, replacing water
+    void divide() {
+        for (int tile = width * height; tile --> 0; ) {
+            if (wall[tile]) continue;
+            final int side = side(tile);
+            boolean border = side == -1;
+            for (int d = 8; d --> 0 && !border; ) {
+                final int nx = tile % width + DX[d], ny = tile / width + DY[d];
+                border = onMap(nx, ny) && side(nx + ny * width) == 1 - side;
+            }
+            if (border) {
+                dam[tile] = true;
+                water[tile] = false;
+            }
+        }
+    }
+
+    void scatterCrumbs(int piles, int amount) {
+        for (int placed = 0, tries = PLACEMENT_TRIES; placed < piles && tries --> 0; ) {
+            final int tile = random.nextInt(width * height);
+            if (side(tile) != 0 || wall[tile] || water[tile] || dam[tile] || zone[tile] || crumbs[tile] != 0) continue;
+            crumbs[tile] = crumbs[mirror(tile)] = amount;
+            ++placed;
+        }
+    }
+
+    void write(File file, String name, int randomSeed) throws IOException {
+        int piles = 0;
+        for (int tile = width * height; tile --> 0; ) if (crumbs[tile] != 0) ++piles;
+        final int[][] crumbPiles = new int[3][piles];
+        for (int tile = 0, i = 0; tile < width * height; ++tile) {
+            if (crumbs[tile] == 0) continue;
+            crumbPiles[0][i] = tile % width;
+            crumbPiles[1][i] = tile / width;
+            crumbPiles[2][i++] = crumbs[tile];
+        }
+        MapWriter.write(file, name, width, height, symmetry, randomSeed, wall, water, dam, new int[][]{spawnX, spawnY}, crumbPiles);
+    }
+}
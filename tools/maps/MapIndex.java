@@ -0,0 +1,112 @@
+package maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds a table of MapFeatures for every map in the given directories and jars (the engine jar has the official
+ * maps), and prints it. Rows are cached by the hash of the map file, so only new or changed maps are analyzed again.
+ * Usage: MapIndex indexFile source...
+ */
+public class MapIndex {
+    final static String HEADER = "hash\tname\tsource\twidth\theight\tsymmetry\topen\twalls\twater\tdams\tchokepoints\t" +
+            "landPath\twaterPath\twaterCrossings\tcrumbPiles\tcrumbTotal";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MapIndex indexFile source...");
+            System.exit(1);
+        }
+        final File indexFile = new File(args[0]);
+        final Map<String, String> cached = new LinkedHashMap<>();
+        if (indexFile.exists()) {
+            for (String line : Files.readAllLines(indexFile.toPath())) {
+                if (!line.startsWith("hash\t")) cached.put(line.substring(0, line.indexOf('\t')), line);
+            }
+        }
+
+        final List<String> rows = new ArrayList<>();
+        int analyzed = 0;
+        for (int i = 1; i < args.length; ++i) {
+            final File source = new File(args[i]);
+            if (source.isDirectory()) {
+                final File[] files = source.listFiles((dir, name) -> name.endsWith(".map24"));
+                for (File file : files == null ? new File[0] : files) {
+                    final String hash = hash(Files.readAllBytes(file.toPath()));
+                    if (!cached.containsKey(hash)) {
+                        cached.put(hash, row(hash, MapFile.open(file), source.getName()));
+                        ++analyzed;
+                    }
+                    rows.add(cached.get(hash));
+                }
+            } else if (source.getName().endsWith(".jar")) {
+                try (ZipFile jar = new ZipFile(source)) {
+                    for (Enumeration<? extends ZipEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                        final ZipEntry entry = entries.nextElement();
+                        if (!entry.getName().endsWith(".map24")) continue;
+                        final byte[] bytes = readAll(jar.getInputStream(entry));
+                        final String hash = hash(bytes);
+                        if (!cached.containsKey(hash)) {
+                            cached.put(hash, row(hash, new MapFile(ByteBuffer.wrap(bytes)), source.getName()));
+                            ++analyzed;
+                        }
+                        rows.add(cached.get(hash));
+                    }
+                }
+            }
+        }
+
+        rows.sort((a, b) -> a.split("\t")[1].compareToIgnoreCase(b.split("\t")[1]));
+        if (indexFile.getParentFile() != null) indexFile.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(indexFile)) {
+            out.println(HEADER);
+            rows.forEach(out::println);
+        }
+
+        System.out.println(HEADER.substring(HEADER.indexOf('\t') + 1));
+        for (String row : rows) System.out.println(row.substring(row.indexOf('\t') + 1));
+        System.out.println(rows.size() + " maps, " + analyzed + " analyzed, the rest from " + indexFile);
+    }
+
+    static String row(String hash, MapFile map, String source) {
+        final MapFeatures f = new MapFeatures(map);
+        return String.join("\t", hash, f.name, source, Integer.toString(f.width), Integer.toString(f.height), f.symmetry,
+                String.format("%.3f", f.openRatio), String.format("%.3f", f.wallRatio), String.format("%.3f", f.waterRatio),
+                Integer.toString(f.dams), Integer.toString(f.chokepoints), Integer.toString(f.landPath),
+                Integer.toString(f.waterPath), Integer.toString(f.waterCrossings), Integer.toString(f.crumbPiles),
+                Integer.toString(f.crumbTotal));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[8192];
+            for (int n; (n = stream.read(chunk)) != -1; ) out.write(chunk, 0, n);
+            return out.toByteArray();
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            final StringBuilder builder = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
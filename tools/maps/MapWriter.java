@@ -0,0 +1,125 @@
+package maps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Writes the flatbuffer GameMap that MapFile reads. Tables are laid out front to back, each vtable right before its
+ * table and every vector or subtable after whatever points to it, so all offsets are forward like the format expects.
+ */
+public class MapWriter {
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @param symmetry index into MapFile.SYMMETRIES
+     * @param spawns   {xs, ys} of the spawn zone centers, alternating teams starting with A
+     * @param crumbs   {xs, ys, amounts}
+     */
+    public static void write(File file, String name, int width, int height, int symmetry, int randomSeed,
+                             boolean[] walls, boolean[] water, boolean[] dams, int[][] spawns, int[][] crumbs) throws IOException {
+        final MapWriter writer = new MapWriter();
+        writer.buffer.putInt(0);
+        final int[] root = writer.table(4, 8, 4, 4, 4, 4, 4, 4, 4, 4, 4);
+        writer.link(0, root[0]);
+        writer.buffer.putInt(root[1 + MapFile.SIZE], width).putInt(root[1 + MapFile.SIZE] + 4, height);
+        writer.buffer.putInt(root[1 + MapFile.SYMMETRY], symmetry);
+        writer.buffer.putInt(root[1 + MapFile.RANDOM_SEED], randomSeed);
+        writer.link(root[1 + MapFile.NAME], writer.string(name));
+        writer.link(root[1 + MapFile.BODIES], writer.bodies());
+        writer.link(root[1 + MapFile.WALLS], writer.boolVector(walls));
+        writer.link(root[1 + MapFile.WATER], writer.boolVector(water));
+        writer.link(root[1 + MapFile.DAMS], writer.boolVector(dams));
+        writer.link(root[1 + MapFile.SPAWN_LOCATIONS], writer.vecTable(spawns[0], spawns[1]));
+        writer.link(root[1 + MapFile.RESOURCE_PILES], writer.vecTable(crumbs[0], crumbs[1]));
+        writer.link(root[1 + MapFile.RESOURCE_PILE_AMOUNTS], writer.intVector(crumbs[2]));
+
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Couldn't create " + dir);
+        Files.write(file.toPath(), Arrays.copyOf(writer.buffer.array(), writer.buffer.position()));
+    }
+
+    private void reserve(int bytes) {
+        if (buffer.remaining() >= bytes) return;
+        final ByteBuffer bigger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        buffer = bigger.put(buffer);
+    }
+
+    private void align() {
+        reserve(3);
+        while (buffer.position() % 4 != 0) buffer.put((byte) 0);
+    }
+
+    // Writes a vtable and a zeroed table with fields of the given sizes. Returns the table, then where each field is.
+    private int[] table(int... sizes) {
+        align();
+        final int vtable = buffer.position();
+        int tableSize = 4;
+        for (int size : sizes) tableSize += size;
+        reserve(4 + 2 * sizes.length + 2 + tableSize);
+        buffer.putShort((short) (4 + 2 * sizes.length)).putShort((short) tableSize);
+        final int[] positions = new int[1 + sizes.length];
+        for (int f = 0, offset = 4; f < sizes.length; offset += sizes[f++]) {
+            buffer.putShort((short) offset);
+            positions[1 + f] = offset;
+        }
+        align();
+        positions[0] = buffer.position();
+        buffer.putInt(positions[0] - vtable);
+        for (int i = tableSize - 4; i --> 0; ) buffer.put((byte) 0);
+        for (int f = 1; f < positions.length; ++f) positions[f] += positions[0];
+        return positions;
+    }
+
+    private void link(int at, int target) {
+        buffer.putInt(at, target - at);
+    }
+
+    private int string(String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        align();
+        reserve(4 + bytes.length + 1);
+        final int at = buffer.position();
+        buffer.putInt(bytes.length).put(bytes).put((byte) 0);
+        return at;
+    }
+
+    private int boolVector(boolean[] values) {
+        align();
+        reserve(4 + values.length);
+        final int at = buffer.position();
+        buffer.putInt(values.length);
+        for (boolean value : values) buffer.put((byte) (value ? 1 : 0));
+        return at;
+    }
+
+    private int intVector(int[] values) {
+        align();
+        reserve(4 + 4 * values.length);
+        final int at = buffer.position();
+        buffer.putInt(values.length);
+        for (int value : values) buffer.putInt(value);
+        return at;
+    }
+
+    private int vecTable(int[] xs, int[] ys) {
+        final int[] table = table(4, 4);
+        link(table[1], intVector(xs));
+        link(table[2], intVector(ys));
+        return table[0];
+    }
+
+    // Maps start with no robots: empty team and type vectors and an empty location table, like the official ones
+    private int bodies() {
+        final int[] table = table(4, 4, 4);
+        link(table[1], intVector(new int[0]));
+        link(table[2], intVector(new int[0]));
+        link(table[3], vecTable(new int[0], new int[0]));
+        return table[0];
+    }
+}
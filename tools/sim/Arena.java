@@ -0,0 +1,98 @@
+package sim;
+
+import battlecode.common.Direction;
+import battlecode.common.GameConstants;
+import battlecode.common.SkillType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A small open map with walls, two teams of ducks and the combat rules from GameConstants and SkillType: attack and
+ * heal radii, damage, heal amounts and cooldowns. Flags, traps, crumbs and spawning aren't modeled.
+ * Robots take turns in ID order every round, like the engine does for robots spawned in that order.
+ */
+public class Arena {
+    final static int MOVEMENT_COOLDOWN = 10;  // cooldown added by a normal move
+
+    final static int[] DX = new int[9];
+    final static int[] DY = new int[9];
+    static {
+        for (Direction d : Direction.values()) {
+            DX[d.ordinal()] = d.getDeltaX();
+            DY[d.ordinal()] = d.getDeltaY();
+        }
+    }
+
+    final int width, height;
+    final boolean[] wall;
+    final SimRobot[] occupant;
+    final List<SimRobot> robots = new ArrayList<>();
+    final int[] baseX = new int[2], baseY = new int[2];  // where each team starts, for robots that can't see anyone
+    final Random random;
+    int round = 0;
+
+    Arena(int width, int height, Random random) {
+        this.width = width;
+        this.height = height;
+        this.wall = new boolean[width * height];
+        this.occupant = new SimRobot[width * height];
+        this.random = random;
+    }
+
+    boolean onMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    boolean passable(int x, int y) {
+        return onMap(x, y) && !wall[x + y * width] && occupant[x + y * width] == null;
+    }
+
+    SimRobot add(int team, int x, int y) {
+        final SimRobot robot = new SimRobot(robots.size(), team, x, y, GameConstants.DEFAULT_HEALTH);
+        robots.add(robot);
+        occupant[x + y * width] = robot;
+        return robot;
+    }
+
+    int alive(int team) {
+        int count = 0;
+        for (SimRobot r : robots) {
+            if (r.team == team && r.isAlive()) ++count;
+        }
+        return count;
+    }
+
+    int totalHealth(int team) {
+        int total = 0;
+        for (SimRobot r : robots) {
+            if (r.team == team && r.isAlive()) total += r.health;
+        }
+        return total;
+    }
+
+    void playRound(MicroPolicy[] policies) {
+        ++round;
+        for (int i = 0; i < robots.size(); ++i) {
+            final SimRobot robot = robots.get(i);
+            if (!robot.isAlive()) continue;
+            robot.movementCooldown = Math.max(0, robot.movementCooldown - GameConstants.COOLDOWNS_PER_TURN);
+            robot.actionCooldown = Math.max(0, robot.actionCooldown - GameConstants.COOLDOWNS_PER_TURN);
+            policies[robot.team].takeTurn(new SimController(this, robot));
+        }
+    }
+
+    void kill(SimRobot robot) {
+        robot.health = 0;
+        occupant[robot.x + robot.y * width] = null;
+    }
+
+    static int attackDamage(SimRobot robot) {
+        return SkillType.ATTACK.getSkillEffect(robot.attackLevel);
+    }
+
+    static int healAmount(SimRobot robot) {
+        return SkillType.HEAL.getSkillEffect(robot.healLevel);
+    }
+}
@@ -0,0 +1,39 @@
+package sim;
+
+import java.util.List;
+
+/**
+ * Baseline: hit the weakest enemy in range and walk at the nearest enemy, and heal when there's nothing to hit.
+ */
+public class GreedyPolicy implements MicroPolicy {
+    @Override
+    public void takeTurn(SimController rc) {
+        final SimRobot me = rc.self();
+        final List<SimRobot> enemies = rc.senseRobots(true);
+        if (enemies.isEmpty()) {
+            Policies.moveToward(rc, rc.getEnemyBaseX(), rc.getEnemyBaseY());
+        } else {
+            attackWeakest(rc, enemies);
+            final SimRobot nearest = Policies.nearest(me, enemies);
+            Policies.moveToward(rc, nearest.x, nearest.y);
+            attackWeakest(rc, enemies);
+        }
+
+        if (rc.isActionReady()) {
+            for (SimRobot ally : rc.senseRobots(false)) {
+                if (rc.canHeal(ally)) {
+                    rc.heal(ally);
+                    break;
+                }
+            }
+        }
+    }
+
+    static void attackWeakest(SimController rc, List<SimRobot> enemies) {
+        SimRobot target = null;
+        for (SimRobot enemy : enemies) {
+            if (rc.canAttack(enemy) && (target == null || enemy.health < target.health)) target = enemy;
+        }
+        if (target != null) rc.attack(target);
+    }
+}
@@ -0,0 +1,9 @@
+package sim;
+
+/**
+ * Decides what one duck does on its turn. Implementations need a public no-argument constructor to be loaded by name,
+ * and must not keep per-robot state in static fields since skirmishes run on several threads at once.
+ */
+public interface MicroPolicy {
+    void takeTurn(SimController rc);
+}
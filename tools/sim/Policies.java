@@ -0,0 +1,82 @@
+package sim;
+
+import battlecode.common.Direction;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Turns policy specs from the command line into policy factories. A spec is "greedy", "threshold" or a class name,
+ * optionally followed by ":field=value,..." to set public int, double or boolean fields on each new instance.
+ */
+public class Policies {
+    static Supplier<MicroPolicy> parse(String spec) {
+        final int colon = spec.indexOf(':');
+        final String name = colon == -1 ? spec : spec.substring(0, colon);
+        final String[] settings = colon == -1 ? new String[0] : spec.substring(colon + 1).split(",");
+
+        final Class<? extends MicroPolicy> type;
+        switch (name) {
+            case "greedy": type = GreedyPolicy.class; break;
+            case "threshold": type = ThresholdPolicy.class; break;
+            default:
+                try {
+                    type = Class.forName(name).asSubclass(MicroPolicy.class);
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown policy " + name, e);
+                }
+        }
+
+        final Supplier<MicroPolicy> factory = () -> {
+            try {
+                final MicroPolicy policy = type.getConstructor().newInstance();
+                for (String setting : settings) {
+                    if (!setting.isEmpty()) set(policy, setting);
+                }
+                return policy;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Could not create policy " + spec, e);
+            }
+        };
+        factory.get();  // fail on bad specs before any threads start
+        return factory;
+    }
+
+    private static void set(MicroPolicy policy, String setting) throws ReflectiveOperationException {
+        final String[] parts = setting.split("=", 2);
+        if (parts.length != 2) throw new IllegalArgumentException("Expected field=value, got " + setting);
+        final Field field = policy.getClass().getField(parts[0].trim());
+        final String value = parts[1].trim();
+        if (field.getType() == int.class) field.setInt(policy, Integer.parseInt(value));
+        else if (field.getType() == double.class) field.setDouble(policy, Double.parseDouble(value));
+        else if (field.getType() == boolean.class) field.setBoolean(policy, Boolean.parseBoolean(value));
+        else throw new IllegalArgumentException("Can't set " + field.getType() + " field " + parts[0]);
+    }
+
+    static SimRobot nearest(SimRobot from, List<SimRobot> robots) {
+        SimRobot nearest = null;
+        for (SimRobot r : robots) {
+            if (nearest == null || from.distanceSquaredTo(r) < from.distanceSquaredTo(nearest)) nearest = r;
+        }
+        return nearest;
+    }
+
+    // Greedy step toward (x, y), trying the direct way and then the two next to it
+    static void moveToward(SimController rc, int x, int y) {
+        if (!rc.isMovementReady()) return;
+        final Direction dir = directionTo(rc.self(), x, y);
+        if (dir == Direction.CENTER) return;
+        if (rc.canMove(dir)) rc.move(dir);
+        else if (rc.canMove(dir.rotateLeft())) rc.move(dir.rotateLeft());
+        else if (rc.canMove(dir.rotateRight())) rc.move(dir.rotateRight());
+    }
+
+    static Direction directionTo(SimRobot from, int x, int y) {
+        final int dx = Integer.signum(x - from.x), dy = Integer.signum(y - from.y);
+        for (Direction d : Direction.values()) {
+            if (d.getDeltaX() == dx && d.getDeltaY() == dy) return d;
+        }
+        return Direction.CENTER;
+    }
+}
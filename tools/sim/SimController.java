@@ -0,0 +1,113 @@
+package sim;
+
+import battlecode.common.Direction;
+import battlecode.common.GameConstants;
+import battlecode.common.SkillType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The slice of RobotController that micro needs, for the robot whose turn it is. Illegal actions are ignored instead of
+ * throwing, so check the can* methods first like a real player would.
+ */
+public class SimController {
+    private final Arena arena;
+    private final SimRobot me;
+
+    SimController(Arena arena, SimRobot me) {
+        this.arena = arena;
+        this.me = me;
+    }
+
+    public SimRobot self() {
+        return me;
+    }
+
+    public int getRoundNum() {
+        return arena.round;
+    }
+
+    public java.util.Random random() {
+        return arena.random;
+    }
+
+    // Where the enemy team started. Policies head here when there's nobody in sight, like bots heading for enemy flags.
+    public int getEnemyBaseX() {
+        return arena.baseX[1 - me.team];
+    }
+
+    public int getEnemyBaseY() {
+        return arena.baseY[1 - me.team];
+    }
+
+    public boolean isMovementReady() {
+        return me.movementCooldown < GameConstants.COOLDOWN_LIMIT;
+    }
+
+    public boolean isActionReady() {
+        return me.actionCooldown < GameConstants.COOLDOWN_LIMIT;
+    }
+
+    public int getAttackDamage() {
+        return Arena.attackDamage(me);
+    }
+
+    public int getHealAmount() {
+        return Arena.healAmount(me);
+    }
+
+    public List<SimRobot> senseRobots(boolean enemies) {
+        final List<SimRobot> seen = new ArrayList<>();
+        for (SimRobot r : arena.robots) {
+            if (r.isAlive() && r != me && (r.team != me.team) == enemies &&
+                    me.distanceSquaredTo(r) <= GameConstants.VISION_RADIUS_SQUARED) {
+                seen.add(r);
+            }
+        }
+        return seen;
+    }
+
+    public boolean canMove(Direction dir) {
+        return dir != Direction.CENTER && isMovementReady() &&
+                arena.passable(me.x + Arena.DX[dir.ordinal()], me.y + Arena.DY[dir.ordinal()]);
+    }
+
+    // Whether (x, y) is on the map and not a wall, ignoring robots
+    public boolean isOpen(int x, int y) {
+        return arena.onMap(x, y) && !arena.wall[x + y * arena.width];
+    }
+
+    public void move(Direction dir) {
+        if (!canMove(dir)) return;
+        arena.occupant[me.x + me.y * arena.width] = null;
+        me.x += Arena.DX[dir.ordinal()];
+        me.y += Arena.DY[dir.ordinal()];
+        arena.occupant[me.x + me.y * arena.width] = me;
+        me.movementCooldown += Arena.MOVEMENT_COOLDOWN;
+    }
+
+    public boolean canAttack(SimRobot target) {
+        return isActionReady() && target.isAlive() && target.team != me.team &&
+                me.distanceSquaredTo(target) <= GameConstants.ATTACK_RADIUS_SQUARED;
+    }
+
+    public void attack(SimRobot target) {
+        if (!canAttack(target)) return;
+        target.health -= Arena.attackDamage(me);
+        if (!target.isAlive()) arena.kill(target);
+        me.actionCooldown += SkillType.ATTACK.getCooldown(me.attackLevel);
+    }
+
+    public boolean canHeal(SimRobot target) {
+        return isActionReady() && target.isAlive() && target.team == me.team && target != me &&
+                target.health < GameConstants.DEFAULT_HEALTH &&
+                me.distanceSquaredTo(target) <= GameConstants.HEAL_RADIUS_SQUARED;
+    }
+
+    public void heal(SimRobot target) {
+        if (!canHeal(target)) return;
+        target.health = Math.min(GameConstants.DEFAULT_HEALTH, target.health + Arena.healAmount(me));
+        me.actionCooldown += SkillType.HEAL.getCooldown(me.healLevel);
+    }
+}
@@ -0,0 +1,35 @@
+package sim;
+
+/**
+ * One duck in a skirmish. Policies can read everything here but should only change it through SimController.
+ */
+public class SimRobot {
+    public final int id;
+    public final int team;
+    public int x, y;
+    public int health;
+    public int attackLevel, healLevel;
+
+    int movementCooldown = 0;
+    int actionCooldown = 0;
+
+    SimRobot(int id, int team, int x, int y, int health) {
+        this.id = id;
+        this.team = team;
+        this.x = x;
+        this.y = y;
+        this.health = health;
+    }
+
+    public boolean isAlive() {
+        return health > 0;
+    }
+
+    public int distanceSquaredTo(int tx, int ty) {
+        return (x - tx) * (x - tx) + (y - ty) * (y - ty);
+    }
+
+    public int distanceSquaredTo(SimRobot other) {
+        return distanceSquaredTo(other.x, other.y);
+    }
+}
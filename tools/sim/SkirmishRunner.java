@@ -0,0 +1,123 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays policy A against policy B in many small skirmishes, one per task on a thread pool, and prints how A did.
+ * Each skirmish gets its own Random from the seed, so results don't depend on the thread count. Sides alternate between
+ * skirmishes, and so does which policy moves first, since robots take turns in the order they were added.
+ * Usage: SkirmishRunner policyA policyB [fights] [size] [units] [wallDensity] [seed] [threads]
+ */
+public class SkirmishRunner {
+    final static int MAX_ROUNDS = 200;
+
+    // What one skirmish ended with, from A's point of view
+    static class Result {
+        final int winner;  // 0 for A, 1 for B, -1 for a tie
+        final int healthA, healthB;
+        final int rounds;
+
+        Result(int winner, int healthA, int healthB, int rounds) {
+            this.winner = winner;
+            this.healthA = healthA;
+            this.healthB = healthB;
+            this.rounds = rounds;
+        }
+    }
+
+    static Result skirmish(Supplier<MicroPolicy> policyA, Supplier<MicroPolicy> policyB,
+                           int size, int units, double wallDensity, long seed, boolean swap) {
+        final Random random = new Random(seed);
+        final Arena arena = new Arena(size, size, random);
+        // Walls are placed symmetrically and kept out of the columns the robots start in, plus one more to leave a gap
+        final int startColumns = (units + size - 1) / size;
+        for (int x = startColumns + 1; x < size - 2; ++x) {
+            for (int y = 0; y < size; ++y) {
+                if (x < size - 1 - x && random.nextDouble() < wallDensity) {
+                    arena.wall[x + y * size] = true;
+                    arena.wall[(size - 1 - x) + (size - 1 - y) * size] = true;
+                }
+            }
+        }
+        // Robots of the two teams alternate IDs, and the team added first in each pair moves first every round
+        final int a = swap ? 1 : 0;
+        arena.baseX[a] = arena.baseY[a] = 0;
+        arena.baseX[1 - a] = arena.baseY[1 - a] = size - 1;
+        for (int i = 0; i < units; ++i) {
+            final int x = i / size, y = i % size;
+            if (swap) {
+                arena.add(1 - a, size - 1 - x, size - 1 - y);
+                arena.add(a, x, y);
+            } else {
+                arena.add(a, x, y);
+                arena.add(1 - a, size - 1 - x, size - 1 - y);
+            }
+        }
+
+        final MicroPolicy[] policies = new MicroPolicy[2];
+        policies[a] = policyA.get();
+        policies[1 - a] = policyB.get();
+        while (arena.round < MAX_ROUNDS && arena.alive(0) > 0 && arena.alive(1) > 0) {
+            arena.playRound(policies);
+        }
+
+        final int healthA = arena.totalHealth(a), healthB = arena.totalHealth(1 - a);
+        final int winner = healthA > healthB ? 0 : (healthB > healthA ? 1 : -1);
+        return new Result(winner, healthA, healthB, arena.round);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SkirmishRunner policyA policyB [fights] [size] [units] [wallDensity] [seed] [threads]");
+            System.exit(1);
+        }
+        final Supplier<MicroPolicy> policyA = Policies.parse(args[0]);
+        final Supplier<MicroPolicy> policyB = Policies.parse(args[1]);
+        final int fights = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        final int size = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+        final int units = args.length > 4 ? Integer.parseInt(args[4]) : 6;
+        final double wallDensity = args.length > 5 ? Double.parseDouble(args[5]) : 0.1;
+        final long seed = args.length > 6 ? Long.parseLong(args[6]) : 0;
+        final int threads = args.length > 7 ? Integer.parseInt(args[7]) : Runtime.getRuntime().availableProcessors();
+        if (units > size * size / 2) throw new IllegalArgumentException("Too many units for a " + size + "x" + size + " arena");
+
+        final long start = System.nanoTime();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<Result>> results = new ArrayList<>(fights);
+        for (int i = 0; i < fights; ++i) {
+            final long fightSeed = seed * 1_000_003 + i;
+            final boolean swap = (i & 1) == 1;
+            results.add(pool.submit(() -> skirmish(policyA, policyB, size, units, wallDensity, fightSeed, swap)));
+        }
+
+        int wins = 0, losses = 0, ties = 0;
+        long healthA = 0, healthB = 0, rounds = 0;
+        try {
+            for (Future<Result> future : results) {
+                final Result result = future.get();
+                if (result.winner == 0) ++wins;
+                else if (result.winner == 1) ++losses;
+                else ++ties;
+                healthA += result.healthA;
+                healthB += result.healthB;
+                rounds += result.rounds;
+            }
+        } finally {
+            // otherwise a skirmish that throws leaves the pool's threads keeping the JVM alive
+            pool.shutdownNow();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%s vs %s: %d wins, %d losses, %d ties (%.1f%% win rate)%n",
+                args[0], args[1], wins, losses, ties, 100.0 * (wins + ties / 2.0) / fights);
+        System.out.printf("Average surviving health: %.0f vs %.0f, average length %.1f rounds%n",
+                (double) healthA / fights, (double) healthB / fights, (double) rounds / fights);
+        System.out.printf("%d fights on %d threads in %.2fs (%.0f fights/s)%n", fights, threads, seconds, fights / seconds);
+    }
+}
@@ -0,0 +1,164 @@
+package sim;
+
+import battlecode.common.Direction;
+import battlecode.common.GameConstants;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A copy of e_exfiltrateflag's RobotPlayer.fight, countEnemiesCanReach and Micro.act, using only what the arena has.
+ * The fields have the same names as the package's Params and get their defaults from params/e_exfiltrateflag.properties,
+ * so "threshold" plays with the current values. Change them with "threshold:RETREAT_HEALTH=400,THREAT_WEIGHT=150".
+ * Left out, since the arena has nothing to base them on:
+ * - trap placement while retreating (TRAP_CRUMB_THRESHOLD, EXPLOSIVE_DENSITY)
+ * - the enemy territory bonus when pushing (TERRITORY_BONUS)
+ * - the flag carrier bonus (FLAG_CARRIER_BONUS)
+ * - FocusFire's shared focus targets (FOCUS_BONUS, COVERED_PENALTY)
+ * - EnemyTracker's attack cooldown inference, so every enemy in reach counts as a threat
+ * - build levels in the target score, since simulated robots don't have one
+ * - HealClaims, so healing is just the weakest ally in range
+ */
+public class ThresholdPolicy implements MicroPolicy {
+    final static String PARAMS_FILE = "params/e_exfiltrateflag.properties";
+    final static int REACH_RADIUS_SQUARED = 10;
+    final static int NO_MOVE = -1_000_000_000;
+    final static Direction[] DIRECTIONS = Direction.values();
+
+    public int RETREAT_HEALTH;
+    public int AGGRESSIVE_HEALTH_RATIO;
+    public int AGGRESSIVE_COUNT_PERCENT;
+    public int THREAT_WEIGHT;
+    public int RETREAT_THREAT_WEIGHT;
+    public int AGGRESSIVE_THREAT_WEIGHT;
+    public int APPROACH_WEIGHT;
+    public int STAY_BONUS;
+    public int HIT_BONUS;
+    public int KILL_BONUS;
+
+    private static Properties defaults;
+
+    private final int[] moveScore = new int[9];
+
+    public ThresholdPolicy() throws IllegalAccessException {
+        final Properties params = defaults();
+        for (Field field : ThresholdPolicy.class.getFields()) {
+            final String value = params.getProperty(field.getName());
+            if (value == null) throw new IllegalStateException(PARAMS_FILE + " doesn't have " + field.getName());
+            field.setInt(this, Integer.parseInt(value.trim()));
+        }
+    }
+
+    private static synchronized Properties defaults() {
+        if (defaults == null) {
+            final Properties params = new Properties();
+            try (Reader in = new FileReader(PARAMS_FILE)) {
+                params.load(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + PARAMS_FILE + ", run from the project directory", e);
+            }
+            defaults = params;
+        }
+        return defaults;
+    }
+
+    @Override
+    public void takeTurn(SimController rc) {
+        final SimRobot me = rc.self();
+        final List<SimRobot> enemies = rc.senseRobots(true);
+        final List<SimRobot> allies = rc.senseRobots(false);
+        if (enemies.isEmpty()) {
+            heal(rc, allies);
+            Policies.moveToward(rc, rc.getEnemyBaseX(), rc.getEnemyBaseY());
+            return;
+        }
+
+        int allyHealth = 0; for (SimRobot r : allies) allyHealth += r.health;
+        int enemyHealth = 0; for (SimRobot r : enemies) enemyHealth += r.health;
+
+        final boolean retreating = me.health < GameConstants.DEFAULT_HEALTH && (me.health <= RETREAT_HEALTH || allyHealth < enemyHealth);
+        final boolean aggressive = !retreating && allyHealth >= enemyHealth * AGGRESSIVE_HEALTH_RATIO &&
+                allyHealth >= enemyHealth + GameConstants.DEFAULT_HEALTH * 2 && allies.size() * 100 >= enemies.size() * AGGRESSIVE_COUNT_PERCENT;
+        final int weight = retreating ? RETREAT_THREAT_WEIGHT : (aggressive ? AGGRESSIVE_THREAT_WEIGHT : THREAT_WEIGHT);
+        final SimRobot nearestEnemy = Policies.nearest(me, enemies);
+
+        int bestDir = 8, bestScore = NO_MOVE;
+        for (int d = 9; d --> 0; ) {
+            final Direction dir = DIRECTIONS[d];
+            if (d != 8 && !rc.canMove(dir)) {
+                moveScore[d] = NO_MOVE;
+                continue;
+            }
+            final int x = me.x + Arena.DX[d], y = me.y + Arena.DY[d];
+            int score = -countEnemiesCanReach(rc, x, y, enemies) * weight;
+            if (d == 8) score += STAY_BONUS;
+            if (aggressive) {
+                score -= Math.max(Math.abs(x - nearestEnemy.x), Math.abs(y - nearestEnemy.y)) * APPROACH_WEIGHT;
+            }
+            moveScore[d] = score;
+            if (bestScore < score) {
+                bestScore = score;
+                bestDir = d;
+            }
+        }
+
+        SimRobot bestTarget = null;
+        if (rc.isActionReady()) {
+            final int damage = rc.getAttackDamage();
+            for (SimRobot enemy : enemies) {
+                if (me.distanceSquaredTo(enemy) > REACH_RADIUS_SQUARED) continue;
+                final boolean inRangeNow = me.distanceSquaredTo(enemy) <= GameConstants.ATTACK_RADIUS_SQUARED;
+                final int value = HIT_BONUS + GameConstants.DEFAULT_HEALTH - enemy.health + enemy.attackLevel + enemy.healLevel + (enemy.health <= damage ? KILL_BONUS : 0);
+                for (int d = 9; d --> 0; ) {
+                    if (moveScore[d] == NO_MOVE || moveScore[d] + value <= bestScore) continue;
+                    if (inRangeNow || enemy.distanceSquaredTo(me.x + Arena.DX[d], me.y + Arena.DY[d]) <= GameConstants.ATTACK_RADIUS_SQUARED) {
+                        bestScore = moveScore[d] + value;
+                        bestDir = d;
+                        bestTarget = enemy;
+                    }
+                }
+            }
+        }
+
+        if (bestTarget != null && rc.canAttack(bestTarget)) rc.attack(bestTarget);
+        if (bestDir != 8) rc.move(DIRECTIONS[bestDir]);
+        if (bestTarget != null && rc.canAttack(bestTarget)) rc.attack(bestTarget);
+        heal(rc, allies);
+    }
+
+    // Enemies that can hit (x, y) from where they are or after one step toward it, like RobotPlayer.countEnemiesCanReach
+    private static int countEnemiesCanReach(SimController rc, int x, int y, List<SimRobot> enemies) {
+        int count = 0;
+        for (SimRobot enemy : enemies) {
+            if (enemy.distanceSquaredTo(x, y) > REACH_RADIUS_SQUARED) continue;
+            final Direction toward = Policies.directionTo(enemy, x, y);
+            if (enemy.distanceSquaredTo(x, y) <= GameConstants.ATTACK_RADIUS_SQUARED ||
+                    canMoveAndAct(rc, enemy, toward, x, y) ||
+                    canMoveAndAct(rc, enemy, toward.rotateLeft(), x, y) ||
+                    canMoveAndAct(rc, enemy, toward.rotateRight(), x, y)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // Robots are ignored, the same as sensePassability in the real game
+    private static boolean canMoveAndAct(SimController rc, SimRobot enemy, Direction dir, int x, int y) {
+        final int toX = enemy.x + dir.getDeltaX(), toY = enemy.y + dir.getDeltaY();
+        return (toX - x) * (toX - x) + (toY - y) * (toY - y) <= GameConstants.ATTACK_RADIUS_SQUARED && rc.isOpen(toX, toY);
+    }
+
+    private static void heal(SimController rc, List<SimRobot> allies) {
+        if (!rc.isActionReady()) return;
+        SimRobot target = null;
+        for (SimRobot ally : allies) {
+            if (rc.canHeal(ally) && (target == null || ally.health < target.health)) target = ally;
+        }
+        if (target != null) rc.heal(target);
+    }
+}
@@ -0,0 +1,38 @@
+package tune;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * name=value command line arguments, so that the Gradle tasks can pass only the options that were set.
+ */
+public class Args {
+    private final Map<String, String> values = new HashMap<>();
+
+    public Args(String[] args) {
+        for (String arg : args) {
+            final int eq = arg.indexOf('=');
+            if (eq == -1) throw new IllegalArgumentException("Expected name=value, got " + arg);
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+    }
+
+    public String get(String name, String fallback) {
+        final String value = values.get(name);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    public String require(String name) {
+        final String value = get(name, null);
+        if (value == null) throw new IllegalArgumentException("Missing " + name + "=...");
+        return value;
+    }
+
+    public int getInt(String name, int fallback) {
+        return Integer.parseInt(get(name, Integer.toString(fallback)));
+    }
+
+    public double getDouble(String name, double fallback) {
+        return Double.parseDouble(get(name, Double.toString(fallback)));
+    }
+}
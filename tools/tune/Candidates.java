@@ -0,0 +1,82 @@
+package tune;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Writes random parameter sets for a player package as variant files for the generateVariants task.
+ * The search space is "NAME=low:high,..." over names in params/package.properties, and each name is sampled uniformly
+ * with the type of its current value. Variant 0 has no overrides, so the current values are always in the running.
+ * Usage: Candidates package=e_exfiltrateflag space=RETREAT_HEALTH=300:600 [count=16] [seed=0] [variantDir=build/variants]
+ * [paramsDir=params]
+ */
+public class Candidates {
+    static class Range {
+        final String name;
+        final double low, high;
+        final boolean integer;
+
+        Range(String spec, Map<String, String> params) {
+            final String[] parts = spec.split("[=:]");
+            if (parts.length != 3) throw new IllegalArgumentException("Expected NAME=low:high, got " + spec);
+            name = parts[0].trim();
+            low = Double.parseDouble(parts[1]);
+            high = Double.parseDouble(parts[2]);
+            final String current = params.get(name);
+            if (current == null) throw new IllegalArgumentException("The package has no parameter " + name);
+            if (current.equals("true") || current.equals("false")) throw new IllegalArgumentException(name + " is a boolean");
+            integer = !current.contains(".");
+            if (high < low) throw new IllegalArgumentException("Empty range for " + name);
+        }
+
+        String sample(Random random) {
+            if (integer) return Long.toString(Math.round(low) + (long) random.nextInt((int) (Math.round(high) - Math.round(low)) + 1));
+            return Double.toString(low + (high - low) * random.nextDouble());
+        }
+    }
+
+    static String variantName(String base, int index) {
+        return base + "_v" + index;
+    }
+
+    public static void main(String[] argv) throws IOException {
+        final Args args = new Args(argv);
+        final String base = args.require("package");
+        final int count = args.getInt("count", 16);
+        final Random random = new Random(args.getInt("seed", 0));
+        final File variantDir = new File(args.get("variantDir", "build/variants"));
+
+        final Map<String, String> params = new HashMap<>();
+        for (String line : Files.readAllLines(new File(args.get("paramsDir", "params"), base + ".properties").toPath())) {
+            final int eq = line.indexOf('=');
+            if (!line.trim().startsWith("#") && eq != -1) params.put(line.substring(0, eq).trim(), line.substring(eq + 1).trim());
+        }
+        final List<Range> space = new ArrayList<>();
+        for (String spec : args.require("space").split(",")) {
+            if (!spec.trim().isEmpty()) space.add(new Range(spec, params));
+        }
+
+        if (!variantDir.isDirectory() && !variantDir.mkdirs()) throw new IOException("Could not create " + variantDir);
+        final File[] old = variantDir.listFiles((dir, name) -> name.matches(Pattern.quote(base) + "_v\\d+\\.properties"));
+        for (File file : old == null ? new File[0] : old) {
+            if (!file.delete()) throw new IOException("Could not delete " + file);
+        }
+
+        for (int i = 0; i < count; ++i) {
+            try (PrintWriter out = new PrintWriter(new File(variantDir, variantName(base, i) + ".properties"))) {
+                out.println("extends=" + base);
+                if (i == 0) continue;
+                for (Range range : space) out.println(range.name + "=" + range.sample(random));
+            }
+        }
+        System.out.println("Wrote " + count + " variants of " + base + " to " + variantDir);
+    }
+}
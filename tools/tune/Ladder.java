@@ -0,0 +1,245 @@
+package tune;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TrueSkill ratings for player packages, with matches picked to be informative instead of round robin. Each player is
+ * rated mu +- sigma, and the next match is the pair that is both close (likely to be a real contest) and uncertain
+ * (the result moves the ratings the most), weighted against players that already have matches in flight.
+ * Ratings are saved with a hash of each package's classes. A package whose classes changed keeps its mu but gets its
+ * sigma widened, so a new version is placed quickly without starting from scratch.
+ * A match between two deterministic packages (see MatchCache.deterministic) tells us nothing new when replayed with the
+ * same classes on the same map and seats. Every such game that went into the ratings is logged by its MatchCache key
+ * next to the ratings file, and is never counted twice. Games with a package that isn't deterministic can be played
+ * again, since each one is a new sample.
+ * The ladder stops once every player's sigma is at most the target, after the match budget, or when the only games left
+ * are deterministic ones that were already counted.
+ * Usage: Ladder players=a,b,c classpath=... classLocation=... [sigma=1] [matches=100] [maps=m1,m2] [threads=cores]
+ * [seed=0] [ratings=build/tune/ratings.tsv] [daemonPorts=...] [cache=build/tune/match-cache.tsv or none]
+ */
+public class Ladder {
+    final static double MU = 25;
+    final static double SIGMA = MU / 3;
+    final static double BETA = SIGMA / 2;
+    final static double TAU = SIGMA / 100;  // added uncertainty per game, so ratings can keep moving
+    final static double CHANGED_SIGMA = SIGMA / 2;
+
+    static class Player {
+        final String name;
+        String hash;
+        double mu = MU, sigma = SIGMA;
+        int games = 0, inFlight = 0;
+
+        Player(String name) {
+            this.name = name;
+        }
+
+        double conservative() {
+            return mu - 3 * sigma;
+        }
+    }
+
+    // The standard TrueSkill update for a game without draws
+    static void update(Player winner, Player loser) {
+        final double winnerVariance = winner.sigma * winner.sigma + TAU * TAU;
+        final double loserVariance = loser.sigma * loser.sigma + TAU * TAU;
+        final double c2 = 2 * BETA * BETA + winnerVariance + loserVariance;
+        final double c = Math.sqrt(c2);
+        final double t = (winner.mu - loser.mu) / c;
+        final double v = pdf(t) / Math.max(cdf(t), 1e-12);
+        final double w = v * (v + t);
+        winner.mu += winnerVariance / c * v;
+        loser.mu -= loserVariance / c * v;
+        winner.sigma = Math.sqrt(winnerVariance * Math.max(1 - winnerVariance / c2 * w, 1e-4));
+        loser.sigma = Math.sqrt(loserVariance * Math.max(1 - loserVariance / c2 * w, 1e-4));
+        ++winner.games;
+        ++loser.games;
+    }
+
+    // Draw probability-style quality from TrueSkill, times how much there is to learn about the pair
+    static double value(Player a, Player b) {
+        final double c2 = 2 * BETA * BETA + a.sigma * a.sigma + b.sigma * b.sigma;
+        final double quality = Math.sqrt(2 * BETA * BETA / c2) * Math.exp(-(a.mu - b.mu) * (a.mu - b.mu) / (2 * c2));
+        return quality * (a.sigma * a.sigma + b.sigma * b.sigma) / (1 + a.inFlight + b.inFlight);
+    }
+
+    static double pdf(double x) {
+        return Math.exp(-x * x / 2) / Math.sqrt(2 * Math.PI);
+    }
+
+    static double cdf(double x) {
+        return erfc(-x / Math.sqrt(2)) / 2;
+    }
+
+    // Chebyshev approximation from Numerical Recipes, good to about 1e-7
+    static double erfc(double x) {
+        final double z = Math.abs(x);
+        final double t = 1 / (1 + z / 2);
+        final double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 +
+                t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 +
+                t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final Args args = new Args(argv);
+        final String classLocation = args.require("classLocation");
+        final List<Integer> daemonPorts = Tuner.ports(args.get("daemonPorts", ""));
+        final int threads = daemonPorts.isEmpty() ? args.getInt("threads", Runtime.getRuntime().availableProcessors()) : daemonPorts.size();
+        final int budget = args.getInt("matches", 100);
+        final double targetSigma = args.getDouble("sigma", 1);
+        final Random random = new Random(args.getInt("seed", 0));
+        final File ratingsFile = new File(args.get("ratings", "build/tune/ratings.tsv"));
+        final String cacheFile = args.get("cache", "build/tune/match-cache.tsv");
+        final MatchCache cache = new MatchCache(new File(cacheFile), classLocation);
+        final MatchRunner runner = new MatchRunner(args.require("classpath"), classLocation, new File("build/tune/matches"),
+                daemonPorts, cacheFile.equals("none") ? null : cache)
+                .writeSummaries(new File(args.get("summary", "build/tune/summaries.jsonl")));
+        final List<String> maps = Arrays.asList(args.get("maps", String.join(",", Tuner.localMaps())).split(","));
+
+        final List<Player> players = new ArrayList<>();
+        final Map<String, Player> byName = new HashMap<>();
+        for (String name : args.require("players").split(",")) {
+            final Player player = new Player(name.trim());
+            player.hash = cache.packageHash(player.name);
+            players.add(player);
+            byName.put(player.name, player);
+        }
+        if (players.size() < 2) throw new IllegalArgumentException("Need at least two players");
+        load(ratingsFile, byName);
+        final File gamesFile = new File(ratingsFile.getPath().replaceAll("\\.tsv$", "") + "-games.txt");
+        final Set<String> counted = gamesFile.exists() ? new HashSet<>(Files.readAllLines(gamesFile.toPath())) : new HashSet<>();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> running = new ArrayList<>();
+        final Object lock = new Object();
+        final AtomicInteger scheduled = new AtomicInteger();
+        final List<String> newlyCounted = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            running.add(pool.submit(() -> {
+                while (true) {
+                    Player a = null, b = null;
+                    String map = null, key = null;
+                    synchronized (lock) {
+                        if (scheduled.getAndIncrement() >= budget) return null;
+                        // Pairs where someone's rating is still too uncertain
+                        final List<Player[]> pairs = new ArrayList<>();
+                        for (int x = 0; x < players.size(); ++x) {
+                            for (int y = x + 1; y < players.size(); ++y) {
+                                if (players.get(x).sigma > targetSigma || players.get(y).sigma > targetSigma) {
+                                    pairs.add(new Player[]{players.get(x), players.get(y)});
+                                }
+                            }
+                        }
+                        if (pairs.isEmpty()) return null;  // every rating is as certain as asked for
+                        final Map<Player[], Double> values = new HashMap<>();
+                        for (Player[] pair : pairs) values.put(pair, value(pair[0], pair[1]) * (1 + random.nextDouble() * 0.1));
+                        pairs.sort(Comparator.comparingDouble(pair -> -values.get(pair)));
+
+                        // The most valuable pair that still has a map and seating worth playing
+                        search:
+                        for (Player[] pair : pairs) {
+                            final boolean repeatable = !cache.deterministic(pair[0].name) || !cache.deterministic(pair[1].name);
+                            final int offset = random.nextInt(2 * maps.size());
+                            for (int o = 0; o < 2 * maps.size(); ++o) {
+                                final int option = (offset + o) % (2 * maps.size());
+                                final Player first = pair[option & 1], second = pair[1 - (option & 1)];
+                                final String optionKey = repeatable ? null : cache.key(first.name, second.name, maps.get(option / 2));
+                                if (repeatable || counted.add(optionKey)) {
+                                    a = first;
+                                    b = second;
+                                    map = maps.get(option / 2);
+                                    key = optionKey;
+                                    break search;
+                                }
+                            }
+                        }
+                        if (a == null) return null;  // only deterministic games that were already counted are left
+                        ++a.inFlight;
+                        ++b.inFlight;
+                    }
+                    final MatchRunner.Result result = runner.run(a.name, b.name, map);
+                    synchronized (lock) {
+                        --a.inFlight;
+                        --b.inFlight;
+                        if (result.winner == null) {
+                            if (key != null) counted.remove(key);
+                            System.err.println(result);
+                        } else {
+                            update(result.aWon() ? a : b, result.aWon() ? b : a);
+                            if (key != null) newlyCounted.add(key);
+                            System.out.println(result);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : running) future.get();
+        pool.shutdown();
+
+        players.sort(Comparator.comparingDouble(p -> -p.conservative()));
+        save(ratingsFile, players);
+        Files.write(gamesFile.toPath(), newlyCounted, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.printf("%-24s %8s %8s %6s%n", "player", "rating", "95% +-", "games");
+        for (Player player : players) {
+            System.out.printf("%-24s %8.2f %8.2f %6d%n", player.name, player.mu, 2 * player.sigma, player.games);
+        }
+        System.out.println("Sorted by mu - 3 sigma. " + runner.cacheHits.get() + " results came from the match cache.");
+        for (Player player : players) {
+            if (player.sigma > targetSigma) System.out.printf("%s is still above the target sigma of %.2f%n", player.name, targetSigma);
+        }
+    }
+
+    static void load(File file, Map<String, Player> players) throws IOException {
+        if (!file.exists()) return;
+        for (String line : Files.readAllLines(file.toPath())) {
+            final String[] parts = line.split("\t");
+            if (line.startsWith("#") || parts.length != 5 || !players.containsKey(parts[0])) continue;
+            final Player player = players.get(parts[0]);
+            player.mu = Double.parseDouble(parts[1]);
+            player.sigma = Double.parseDouble(parts[2]);
+            player.games = Integer.parseInt(parts[3]);
+            if (!parts[4].equals(player.hash)) player.sigma = Math.max(player.sigma, CHANGED_SIGMA);
+        }
+    }
+
+    // Players that aren't in this run keep their saved ratings
+    static void save(File file, List<Player> players) throws IOException {
+        final Map<String, String> lines = new HashMap<>();
+        final List<String> order = new ArrayList<>();
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath())) {
+                if (line.startsWith("#") || line.isEmpty()) continue;
+                final String name = line.split("\t")[0];
+                lines.put(name, line);
+                order.add(name);
+            }
+        }
+        for (Player player : players) {
+            if (!lines.containsKey(player.name)) order.add(player.name);
+            lines.put(player.name, player.name + "\t" + player.mu + "\t" + player.sigma + "\t" + player.games + "\t" + player.hash);
+        }
+        if (file.getParentFile() != null) file.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("# player\tmu\tsigma\tgames\tclass hash");
+            for (String name : order) out.println(lines.get(name));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package tune;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Results of matches that have already been played, so that unchanged matchups aren't played again. A match is
+ * identified by the hash of both packages' compiled classes, the map file, the engine version and which package plays
+ * as A. That only says anything if the match is deterministic. Robot IDs come from the map's seed, so a package is
+ * deterministic if it seeds every RNG from robot IDs or a constant. The check is done on the package's sources (see
+ * deterministic), and a match with a package that fails it is never cached. Those have to be played every time.
+ * A source check can miss things, so a result is only reused once it has been played CONFIRMATIONS times with the same
+ * winner. A key that ever got two different winners is never reused.
+ * Entries are appended to one tab-separated file as "key\tA or B\trounds\treason", one line per play.
+ */
+public class MatchCache {
+    final static int CONFIRMATIONS = 2;
+
+    // Where player sources are, relative to the project directory
+    final static String[] SOURCE_ROOTS = {"src", "build/generated/sources/variants"};
+    final static Pattern UNSEEDED = Pattern.compile("Math\\.random\\(|nanoTime\\(|currentTimeMillis\\(|ThreadLocalRandom|SecureRandom|randomUUID\\(");
+    final static Pattern DEFAULT_RANDOM = Pattern.compile("new\\s+Random\\(\\s*\\)");
+    final static Pattern SEEDED_FROM_ID = Pattern.compile("\\.setSeed\\(\\s*\\w+\\.getID\\(\\)\\s*\\)");
+
+    // Every play of one key so far
+    private static class Entry {
+        final String[] parts;
+        int plays = 1;
+        boolean mixed = false;
+
+        Entry(String[] parts) {
+            this.parts = parts;
+        }
+    }
+
+    private final File file;
+    private final String classLocation;
+    private final String engineVersion;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> packageHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> mapHashes = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> deterministic = new ConcurrentHashMap<>();
+
+    /**
+     * @param classLocation where the compiled player packages are, as a classpath. Packages are hashed once per cache, so
+     *                      make a new cache after recompiling.
+     */
+    public MatchCache(File file, String classLocation) throws IOException {
+        this.file = file;
+        this.classLocation = classLocation;
+        final File version = new File("version.txt");
+        this.engineVersion = version.exists() ? new String(Files.readAllBytes(version.toPath()), StandardCharsets.UTF_8).trim() : "unknown";
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath())) {
+                final String[] parts = line.split("\t", 4);
+                if (parts.length == 4) record(parts);
+            }
+        }
+    }
+
+    private void record(String[] parts) {
+        entries.merge(parts[0], new Entry(parts), (entry, added) -> {
+            if (entry.parts[1].equals(added.parts[1])) ++entry.plays;
+            else entry.mixed = true;
+            return entry;
+        });
+    }
+
+    // Only counts results that are reused
+    public int size() {
+        int confirmed = 0;
+        for (Entry entry : entries.values()) {
+            if (!entry.mixed && entry.plays >= CONFIRMATIONS) ++confirmed;
+        }
+        return confirmed;
+    }
+
+    public MatchRunner.Result get(String teamA, String teamB, String map) throws IOException {
+        if (!deterministic(teamA) || !deterministic(teamB)) return null;
+        final Entry found = entries.get(key(teamA, teamB, map));
+        if (found == null || found.mixed || found.plays < CONFIRMATIONS) return null;
+        final String[] entry = found.parts;
+        return new MatchRunner.Result(teamA, teamB, map, entry[1].equals("A") ? teamA : teamB, Integer.parseInt(entry[2]), entry[3]);
+    }
+
+    // Failed matches aren't cached, so they get retried
+    public void put(MatchRunner.Result result) throws IOException {
+        if (result.winner == null || !deterministic(result.teamA) || !deterministic(result.teamB)) return;
+        final String[] entry = {key(result.teamA, result.teamB, result.map), result.aWon() ? "A" : "B",
+                Integer.toString(result.rounds), result.reason.replace('\t', ' ').replace('\n', ' ')};
+        record(entry);
+        synchronized (this) {
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+                out.println(String.join("\t", entry));
+            }
+        }
+    }
+
+    String key(String teamA, String teamB, String map) throws IOException {
+        return hash((engineVersion + "\n" + map + " " + mapHash(map) + "\n" +
+                teamA + " " + packageHash(teamA) + "\n" + teamB + " " + packageHash(teamB)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether every game the package plays on the same map against the same opponent is the same. It fails if the
+     * package reads the clock or an unseeded random source, or makes a Random without a seed and never calls
+     * setSeed(rc.getID()). Packages without sources are assumed not to be deterministic.
+     */
+    public boolean deterministic(String packageName) {
+        return deterministic.computeIfAbsent(packageName, name -> {
+            final StringBuilder source = new StringBuilder();
+            for (String root : SOURCE_ROOTS) {
+                final File[] files = new File(root, name.replace('.', '/')).listFiles((d, n) -> n.endsWith(".java"));
+                if (files == null) continue;
+                for (File file : files) {
+                    try {
+                        source.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).append('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            if (source.length() == 0 || UNSEEDED.matcher(source).find()) return false;
+            return !DEFAULT_RANDOM.matcher(source).find() || SEEDED_FROM_ID.matcher(source).find();
+        });
+    }
+
+    private String mapHash(String map) {
+        return mapHashes.computeIfAbsent(map, name -> {
+            final File mapFile = new File("maps", name + ".map24");
+            try {
+                return mapFile.exists() ? hash(Files.readAllBytes(mapFile.toPath())) : "builtin";
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    String packageHash(String packageName) {
+        return packageHashes.computeIfAbsent(packageName, name -> {
+            try {
+                final List<File> classes = new ArrayList<>();
+                for (String root : classLocation.split(File.pathSeparator)) {
+                    collectClasses(new File(root, name.replace('.', '/')), classes);
+                }
+                if (classes.isEmpty()) throw new IOException("No compiled classes for " + name + " in " + classLocation);
+                Collections.sort(classes);
+                final MessageDigest digest = sha256();
+                for (File file : classes) {
+                    digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file.toPath()));
+                }
+                return hex(digest.digest());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Only the package's own directory, since subpackages are other players
+    private static void collectClasses(File dir, List<File> classes) {
+        final File[] files = dir.listFiles((d, n) -> n.endsWith(".class"));
+        if (files != null) Collections.addAll(classes, files);
+    }
+
+    private static String hash(byte[] bytes) {
+        return hex(sha256().digest(bytes));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // every JVM has SHA-256
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) builder.append(Character.forDigit(b >> 4 & 15, 16)).append(Character.forDigit(b & 15, 16));
+        return builder.toString();
+    }
+}
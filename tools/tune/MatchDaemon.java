@@ -0,0 +1,143 @@
+package tune;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A long-lived JVM with the engine loaded that plays matches on request, so batches of matches don't each pay for JVM
+ * startup, engine class loading and JIT warmup. It listens on a local port and plays one match at a time, since the
+ * engine keeps global state. Player classes are loaded fresh for every match, so recompiling between matches is fine.
+ *
+ * Each request is one line, "teamA\tteamB\tmap\tclassLocation\treplayFile", and gets one line back, either
+ * "ok\twinner\trounds\treason" or "fail\tmessage". "quit" stops the daemon.
+ * With workers=N, the daemon also starts N - 1 copies of itself on the next ports and stops them when it stops.
+ * Usage: MatchDaemon [port=7100] [workers=1]
+ */
+public class MatchDaemon {
+    // The engine may exit when a match ends, which would take the daemon with it
+    static class ExitBlocked extends SecurityException {
+        final static long serialVersionUID = 1L;
+
+        ExitBlocked() {
+            super("System.exit is blocked in the match daemon");
+        }
+    }
+
+    static String request(String teamA, String teamB, String map, String classLocation, String replay) {
+        return teamA + "\t" + teamB + "\t" + map + "\t" + classLocation + "\t" + replay;
+    }
+
+    static String response(MatchRunner.Result result) {
+        if (result.winner == null) return "fail\t" + oneLine(result.reason);
+        return "ok\t" + result.winner + "\t" + result.rounds + "\t" + oneLine(result.reason);
+    }
+
+    static MatchRunner.Result parseResponse(String teamA, String teamB, String map, String response) {
+        final String[] parts = response.split("\t", 4);
+        if (parts[0].equals("ok") && parts.length == 4) {
+            return new MatchRunner.Result(teamA, teamB, map, parts[1], Integer.parseInt(parts[2]), parts[3]);
+        }
+        return new MatchRunner.Result(teamA, teamB, map, null, 0, parts.length > 1 ? parts[1] : response);
+    }
+
+    private static String oneLine(String text) {
+        return text.replace('\t', ' ').replace('\n', '|');
+    }
+
+    public static void main(String[] argv) throws IOException {
+        final Args args = new Args(argv);
+        final int port = args.getInt("port", 7100);
+        final int workers = args.getInt("workers", 1);
+
+        final List<Process> children = new ArrayList<>();
+        for (int i = 1; i < workers; ++i) {
+            children.add(new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"), MatchDaemon.class.getName(), "port=" + (port + i))
+                    .inheritIO().start());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> children.forEach(Process::destroy)));
+
+        System.setSecurityManager(new SecurityManager() {
+            @Override
+            public void checkPermission(Permission perm) {
+                // Only exiting is restricted
+            }
+
+            @Override
+            public void checkExit(int status) {
+                throw new ExitBlocked();
+            }
+        });
+
+        final PrintStream console = System.out;
+        console.println("Match daemon listening on port " + port);
+
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                try (Socket socket = server.accept();
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                     PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+                    for (String line; (line = in.readLine()) != null; ) {
+                        if (line.equals("quit")) {
+                            console.println("Match daemon on port " + port + " stopping");
+                            children.forEach(Process::destroy);
+                            Runtime.getRuntime().halt(0);  // System.exit is blocked, and halting skips the shutdown hook
+                        }
+                        final String[] parts = line.split("\t");
+                        if (parts.length != 5) {
+                            out.println("fail\texpected teamA, teamB, map, classLocation and replayFile separated by tabs");
+                            continue;
+                        }
+                        final MatchRunner.Result result = play(parts[0], parts[1], parts[2], parts[3], new File(parts[4]));
+                        console.println(result);
+                        out.println(response(result));
+                    }
+                } catch (IOException e) {
+                    console.println("Lost a client: " + e);
+                }
+            }
+        }
+    }
+
+    // Runs one match in this JVM with the engine's output captured instead of printed. The client owns the replay.
+    static MatchRunner.Result play(String teamA, String teamB, String map, String classLocation, File replay) throws IOException {
+        final Map<String, String> properties = MatchRunner.properties(teamA, teamB, map, classLocation, replay);
+        properties.forEach(System::setProperty);
+
+        final PrintStream stdout = System.out, stderr = System.err;
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        final PrintStream capture = new PrintStream(captured, true, "UTF-8");
+        String failure = "no winner reported";
+        System.setOut(capture);
+        System.setErr(capture);
+        try {
+            battlecode.server.Main.main(new String[]{"-c=-"});
+        } catch (ExitBlocked e) {
+            // finished the normal way
+        } catch (Throwable t) {
+            failure = t.toString();
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+            properties.keySet().forEach(System::clearProperty);
+        }
+
+        final MatchRunner.OutputParser parser = new MatchRunner.OutputParser();
+        for (String line : new String(captured.toByteArray(), StandardCharsets.UTF_8).split("\n")) parser.line(line);
+        return parser.result(teamA, teamB, map, failure);
+    }
+}
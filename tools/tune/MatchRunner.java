@@ -0,0 +1,240 @@
+package tune;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plays single matches through battlecode.server.Main, with the same settings as the run task but without indicators
+ * or robot output. The engine keeps global state, so matches run either in their own JVM each or on MatchDaemons, which
+ * play one match at a time. Daemons skip JVM startup and engine loading, which dominate short matches.
+ * Results can come from a MatchCache instead when the same classes already played on the same map.
+ * Replays are written to a scratch file and thrown away unless keepReplays says otherwise, and every result can be
+ * appended to a summary file as one JSON object per line.
+ */
+public class MatchRunner {
+    final static Pattern WINNER = Pattern.compile("(\\S+) \\(([AB])\\) wins \\(round (\\d+)\\)");
+    final static Pattern REASON = Pattern.compile("Reason: (.*)");
+
+    public static class Result {
+        public final String teamA, teamB, map;
+        public final String winner;  // package name of the winner, or null if the match failed
+        public final int rounds;
+        public final String reason;
+
+        Result(String teamA, String teamB, String map, String winner, int rounds, String reason) {
+            this.teamA = teamA;
+            this.teamB = teamB;
+            this.map = map;
+            this.winner = winner;
+            this.rounds = rounds;
+            this.reason = reason;
+        }
+
+        public boolean aWon() {
+            return teamA.equals(winner);
+        }
+
+        @Override
+        public String toString() {
+            return teamA + " vs " + teamB + " on " + map + ": " +
+                    (winner == null ? "failed (" + reason + ")" : winner + " wins in " + rounds + " rounds (" + reason + ")");
+        }
+    }
+
+    // Picks the result out of the engine's output, one line at a time
+    static class OutputParser {
+        private String side = null, reason = null;
+        private int rounds = 0;
+        private final StringBuilder tail = new StringBuilder();
+
+        void line(String line) {
+            final Matcher w = WINNER.matcher(line);
+            final Matcher r = REASON.matcher(line);
+            if (w.find()) {
+                side = w.group(2);
+                rounds = Integer.parseInt(w.group(3));
+            } else if (r.find()) {
+                reason = r.group(1).trim();
+            }
+            if (tail.length() > 2000) tail.delete(0, tail.length() - 1000);
+            tail.append(line).append('\n');
+        }
+
+        Result result(String teamA, String teamB, String map, String failure) {
+            if (side == null) return new Result(teamA, teamB, map, null, 0, failure + ", last output:\n" + tail);
+            return new Result(teamA, teamB, map, side.equals("A") ? teamA : teamB, rounds, reason == null ? "unknown" : reason);
+        }
+    }
+
+    private final String classpath;
+    private final String classLocation;
+    private final File workDir;
+    private final boolean useDaemons;
+    private final BlockingQueue<Integer> idleDaemons;
+    private final MatchCache cache;
+    final AtomicInteger cacheHits = new AtomicInteger();
+
+    private File replayDir = null;
+    private Predicate<Result> keepReplay = result -> false;
+    private File summaryFile = null;
+
+    /**
+     * @param classpath     runtime classpath with the engine on it
+     * @param classLocation where the compiled player packages are
+     * @param workDir       scratch directory for replay files
+     * @param daemonPorts   local ports of MatchDaemons to play on, or empty to start a JVM for every match
+     * @param cache         results to reuse instead of playing, or null to play every match
+     */
+    public MatchRunner(String classpath, String classLocation, File workDir, List<Integer> daemonPorts, MatchCache cache) {
+        this.classpath = classpath;
+        this.classLocation = classLocation;
+        this.workDir = workDir;
+        this.useDaemons = !daemonPorts.isEmpty();
+        this.idleDaemons = new LinkedBlockingQueue<>(daemonPorts);
+        this.cache = cache;
+        if (!workDir.isDirectory() && !workDir.mkdirs()) {
+            throw new IllegalStateException("Could not create " + workDir);
+        }
+    }
+
+    // Keeps the replays of played (not cached) matches that pass keep in dir, e.g. only the ones some team lost
+    public MatchRunner keepReplays(File dir, Predicate<Result> keep) {
+        this.replayDir = dir;
+        this.keepReplay = keep;
+        return this;
+    }
+
+    public MatchRunner writeSummaries(File file) {
+        this.summaryFile = file;
+        return this;
+    }
+
+    static Map<String, String> properties(String teamA, String teamB, String map, String classLocation, File replay) {
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("bc.server.wait-for-client", "false");
+        properties.put("bc.server.mode", "headless");
+        properties.put("bc.server.map-path", "maps");
+        properties.put("bc.server.robot-player-to-system-out", "false");
+        properties.put("bc.server.debug", "false");
+        properties.put("bc.engine.debug-methods", "false");
+        properties.put("bc.engine.show-indicators", "false");
+        properties.put("bc.game.team-a", teamA);
+        properties.put("bc.game.team-b", teamB);
+        properties.put("bc.game.team-a.url", classLocation);
+        properties.put("bc.game.team-b.url", classLocation);
+        properties.put("bc.game.team-a.package", teamA);
+        properties.put("bc.game.team-b.package", teamB);
+        properties.put("bc.game.maps", map);
+        properties.put("bc.server.validate-maps", "false");
+        properties.put("bc.server.alternate-order", "false");
+        properties.put("bc.server.save-file", replay.getPath());
+        return properties;
+    }
+
+    static File replayFile(File workDir, String teamA, String teamB, String map) throws IOException {
+        return File.createTempFile(teamA + "-vs-" + teamB + "-on-" + map + "-", ".bc24", workDir);
+    }
+
+    public Result run(String teamA, String teamB, String map) throws IOException, InterruptedException {
+        if (cache != null) {
+            final Result cached = cache.get(teamA, teamB, map);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                summarize(cached, true, null);
+                return cached;
+            }
+        }
+        final File replay = replayFile(workDir, teamA, teamB, map);
+        final Result result = useDaemons ? runOnDaemon(teamA, teamB, map, replay) : runInProcess(teamA, teamB, map, replay);
+        if (cache != null) cache.put(result);
+
+        File kept = null;
+        if (replayDir != null && result.winner != null && keepReplay.test(result) && replay.length() > 0) {
+            if (!replayDir.isDirectory() && !replayDir.mkdirs()) throw new IOException("Could not create " + replayDir);
+            kept = new File(replayDir, teamA + "-vs-" + teamB + "-on-" + map + ".bc24");
+            Files.move(replay.toPath(), kept.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } else if (!replay.delete()) {
+            replay.deleteOnExit();
+        }
+        summarize(result, false, kept);
+        return result;
+    }
+
+    private Result runInProcess(String teamA, String teamB, String map, File replay) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        properties(teamA, teamB, map, classLocation, replay).forEach((name, value) -> command.add("-D" + name + "=" + value));
+        command.add("-cp");
+        command.add(classpath);
+        command.add("battlecode.server.Main");
+        command.add("-c=-");
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        final OutputParser parser = new OutputParser();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line; (line = in.readLine()) != null; ) parser.line(line);
+        }
+        final int exit = process.waitFor();
+        return parser.result(teamA, teamB, map, "exit code " + exit);
+    }
+
+    // Waits for an idle daemon, so there are never more matches in flight than daemons
+    private Result runOnDaemon(String teamA, String teamB, String map, File replay) throws IOException, InterruptedException {
+        final int port = idleDaemons.take();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println(MatchDaemon.request(teamA, teamB, map, classLocation, replay.getAbsolutePath()));
+            final String response = in.readLine();
+            if (response == null) return new Result(teamA, teamB, map, null, 0, "daemon on port " + port + " hung up");
+            return MatchDaemon.parseResponse(teamA, teamB, map, response);
+        } finally {
+            idleDaemons.put(port);
+        }
+    }
+
+    private void summarize(Result result, boolean cached, File replay) throws IOException {
+        if (summaryFile == null) return;
+        final String record = "{\"teamA\": " + json(result.teamA) + ", \"teamB\": " + json(result.teamB) +
+                ", \"map\": " + json(result.map) + ", \"winner\": " + json(result.winner) +
+                ", \"reason\": " + json(result.reason) + ", \"rounds\": " + result.rounds +
+                ", \"cached\": " + cached + ", \"replay\": " + json(replay == null ? null : replay.getPath()) + "}";
+        synchronized (this) {
+            if (summaryFile.getParentFile() != null) summaryFile.getParentFile().mkdirs();
+            try (PrintWriter out = new PrintWriter(new FileWriter(summaryFile, true))) {
+                out.println(record);
+            }
+        }
+    }
+
+    private static String json(String text) {
+        if (text == null) return "null";
+        final StringBuilder builder = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') builder.append('\\').append(c);
+            else if (c < ' ') builder.append(String.format("\\u%04x", (int) c));
+            else builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+}
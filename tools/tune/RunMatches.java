@@ -0,0 +1,48 @@
+package tune;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays teamA against teamB on each map in parallel, reusing cached results for matchups that haven't changed.
+ * Nothing is printed by the robots and no replays are kept, except for the matches teamA lost with keepReplays=losses,
+ * or all of them with keepReplays=all. Every result is appended to the summary file as a JSON line.
+ * Usage: RunMatches teamA=... teamB=... maps=m1,m2 classpath=... classLocation=... [threads=cores] [daemonPorts=...]
+ * [cache=build/tune/match-cache.tsv or none] [summary=build/tune/summaries.jsonl] [keepReplays=none, losses or all]
+ */
+public class RunMatches {
+    public static void main(String[] argv) throws Exception {
+        final Args args = new Args(argv);
+        final String teamA = args.require("teamA"), teamB = args.require("teamB");
+        final String classLocation = args.require("classLocation");
+        final List<Integer> daemonPorts = Tuner.ports(args.get("daemonPorts", ""));
+        final int threads = daemonPorts.isEmpty() ? args.getInt("threads", Runtime.getRuntime().availableProcessors()) : daemonPorts.size();
+        final String cacheFile = args.get("cache", "build/tune/match-cache.tsv");
+        final MatchRunner runner = new MatchRunner(args.require("classpath"), classLocation, new File("build/tune/matches"),
+                daemonPorts, cacheFile.equals("none") ? null : new MatchCache(new File(cacheFile), classLocation))
+                .writeSummaries(new File(args.get("summary", "build/tune/summaries.jsonl")));
+        switch (args.get("keepReplays", "none")) {
+            case "none": break;
+            case "losses": runner.keepReplays(new File("matches"), result -> !result.aWon()); break;
+            case "all": runner.keepReplays(new File("matches"), result -> true); break;
+            default: throw new IllegalArgumentException("keepReplays must be none, losses or all");
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<MatchRunner.Result>> results = new ArrayList<>();
+        for (String map : args.require("maps").split(",")) {
+            results.add(pool.submit(() -> runner.run(teamA, teamB, map.trim())));
+        }
+        int wins = 0;
+        for (Future<MatchRunner.Result> result : results) {
+            System.out.println(result.get());
+            if (result.get().aWon()) ++wins;
+        }
+        pool.shutdown();
+        System.out.println(teamA + " won " + wins + " of " + results.size() + " (" + runner.cacheHits.get() + " from the cache)");
+    }
+}
@@ -0,0 +1,151 @@
+package tune;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Successive halving over the variants written by Candidates. Every rung, each surviving candidate plays every opponent
+ * from both seats on the maps seen so far plus some new ones, and the better half moves on. The first rung only uses a
+ * few maps, so clearly losing candidates are dropped cheaply and the full map pool is only spent on the best ones.
+ * Usage: Tuner package=... opponents=a,b classpath=... classLocation=... [maps=m1,m2] [initialMaps=2] [keep=0.5]
+ * [threads=cores] [seed=0] [variantDir=build/variants] [results=build/tune/results.txt] [daemonPorts=7100-7103]
+ * [cache=build/tune/match-cache.tsv or none]
+ * With daemonPorts, matches are played on those MatchDaemons instead of a new JVM each, as many at a time as there are
+ * daemons. Results are cached in build/tune/match-cache.tsv unless cache=none.
+ */
+public class Tuner {
+    static class Candidate {
+        final String name;
+        final String overrides;
+        int wins = 0, games = 0, rung = 0;
+
+        Candidate(String name, String overrides) {
+            this.name = name;
+            this.overrides = overrides;
+        }
+
+        double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+    }
+
+    // Survivors first, then by win rate
+    final static Comparator<Candidate> RANKING = Comparator.<Candidate>comparingInt(c -> -c.rung).thenComparingDouble(c -> -c.winRate());
+
+    public static void main(String[] argv) throws Exception {
+        final Args args = new Args(argv);
+        final String base = args.require("package");
+        final List<String> opponents = Arrays.asList(args.require("opponents").split(","));
+        final File variantDir = new File(args.get("variantDir", "build/variants"));
+        final int initialMaps = args.getInt("initialMaps", 2);
+        final double keep = args.getDouble("keep", 0.5);
+        final List<Integer> daemonPorts = ports(args.get("daemonPorts", ""));
+        final int threads = daemonPorts.isEmpty() ? args.getInt("threads", Runtime.getRuntime().availableProcessors()) : daemonPorts.size();
+        final File resultsFile = new File(args.get("results", "build/tune/results.txt"));
+        final String classLocation = args.require("classLocation");
+        final String cacheFile = args.get("cache", "build/tune/match-cache.tsv");
+        final MatchRunner runner = new MatchRunner(args.require("classpath"), classLocation, new File("build/tune/matches"),
+                daemonPorts, cacheFile.equals("none") ? null : new MatchCache(new File(cacheFile), classLocation));
+
+        final List<String> maps = new ArrayList<>(Arrays.asList(args.get("maps", String.join(",", localMaps())).split(",")));
+        Collections.shuffle(maps, new Random(args.getInt("seed", 0)));
+
+        final List<Candidate> all = new ArrayList<>();
+        for (int i = 0; ; ++i) {
+            final File file = new File(variantDir, Candidates.variantName(base, i) + ".properties");
+            if (!file.exists()) break;
+            final List<String> overrides = new ArrayList<>();
+            for (String line : Files.readAllLines(file.toPath())) {
+                if (!line.trim().isEmpty() && !line.startsWith("extends=")) overrides.add(line.trim());
+            }
+            all.add(new Candidate(Candidates.variantName(base, i), overrides.isEmpty() ? "(current values)" : String.join(",", overrides)));
+        }
+        if (all.isEmpty()) throw new IllegalArgumentException("No variants of " + base + " in " + variantDir + ". Run tuneCandidates first.");
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Candidate> alive = new ArrayList<>(all);
+        int mapsUsed = 0;
+        for (int rung = 0; mapsUsed < maps.size(); ++rung) {
+            final List<String> rungMaps = maps.subList(mapsUsed, Math.min(maps.size(), mapsUsed == 0 ? initialMaps : mapsUsed * 2));
+            mapsUsed += rungMaps.size();
+            for (Candidate candidate : alive) candidate.rung = rung;
+            System.out.println("Rung " + rung + ": " + alive.size() + " candidates on " + rungMaps);
+
+            final List<Future<MatchRunner.Result>> results = new ArrayList<>();
+            final List<Candidate> owners = new ArrayList<>();
+            for (Candidate candidate : alive) {
+                for (String opponent : opponents) {
+                    for (String map : rungMaps) {
+                        results.add(pool.submit(() -> runner.run(candidate.name, opponent, map)));
+                        results.add(pool.submit(() -> runner.run(opponent, candidate.name, map)));
+                        owners.add(candidate);
+                        owners.add(candidate);
+                    }
+                }
+            }
+            for (int i = 0; i < results.size(); ++i) {
+                final MatchRunner.Result result = results.get(i).get();
+                final Candidate candidate = owners.get(i);
+                if (result.winner == null) System.err.println(result);
+                ++candidate.games;
+                if (candidate.name.equals(result.winner)) ++candidate.wins;
+            }
+
+            alive.sort(RANKING);
+            for (Candidate candidate : alive) {
+                System.out.printf("  %s: %d/%d %s%n", candidate.name, candidate.wins, candidate.games, candidate.overrides);
+            }
+            if (mapsUsed == maps.size()) break;
+            alive = new ArrayList<>(alive.subList(0, Math.max(1, (int) Math.ceil(alive.size() * keep))));
+            if (alive.size() == 1) {
+                alive.get(0).rung = rung + 1;
+                break;
+            }
+        }
+        pool.shutdown();
+        if (runner.cacheHits.get() > 0) System.out.println(runner.cacheHits.get() + " results came from the match cache");
+
+        all.sort(RANKING);
+        if (resultsFile.getParentFile() != null) resultsFile.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(resultsFile)) {
+            out.println("# " + base + " against " + opponents + " on " + maps.subList(0, mapsUsed));
+            out.println("# variant\trung\twins\tgames\tparams");
+            for (Candidate candidate : all) {
+                out.println(candidate.name + "\t" + candidate.rung + "\t" + candidate.wins + "\t" + candidate.games + "\t" + candidate.overrides);
+            }
+        }
+        System.out.println("Best: " + all.get(0).name + " " + all.get(0).overrides + ". Full results in " + resultsFile);
+    }
+
+    // "7100-7103" or "7100,7102"
+    static List<Integer> ports(String spec) {
+        final List<Integer> ports = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            if (part.trim().isEmpty()) continue;
+            final String[] range = part.trim().split("-");
+            final int low = Integer.parseInt(range[0]), high = Integer.parseInt(range[range.length - 1]);
+            for (int port = low; port <= high; ++port) ports.add(port);
+        }
+        return ports;
+    }
+
+    static List<String> localMaps() throws IOException {
+        final List<String> maps = new ArrayList<>();
+        final File[] files = new File("maps").listFiles((dir, name) -> name.endsWith(".map24"));
+        if (files == null || files.length == 0) throw new IOException("No maps in maps/. Pass maps=... instead.");
+        for (File file : files) maps.add(file.getName().substring(0, file.getName().length() - ".map24".length()));
+        Collections.sort(maps);
+        return maps;
+    }
+}